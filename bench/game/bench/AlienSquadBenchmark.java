@@ -0,0 +1,82 @@
+package game.bench;
+
+import java.awt.Color;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import game.geometry.Point;
+import game.geometry.Rectangle;
+import game.objects.AlienSquad;
+import game.objects.Block;
+
+/**
+ * @author Yuval Ezra.
+ * Benchmarks the per-frame work of an AlienSquad of five rows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlienSquadBenchmark {
+
+    @Param({"10", "50", "200"})
+    private int aliens;
+
+    private AlienSquad squad;
+
+    /**
+     * Builds the squad the way GameLevel does. It is never asked to shoot, so it
+     * needs no GameLevel.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        int rows = 5, cols = Math.max(1, this.aliens / rows);
+        Block[][] grid = new Block[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            double x = 25;
+            for (int j = 0; j < cols; j++) {
+                grid[i][j] = new Block(new Rectangle(new Point(x + j * 40, 60 + i * 45), 40, 30), Color.GREEN, 1);
+                x += 8;
+            }
+        }
+        this.squad = new AlienSquad(grid, 100, Math.max(800, cols * 48 + 50), null);
+    }
+
+    /**
+     * Puts the squad back at the top of the screen.
+     */
+    @Setup(Level.Iteration)
+    public void restart() {
+        this.squad.restart();
+    }
+
+    /**
+     * Moves the squad one 60 FPS step.
+     */
+    @Benchmark
+    public void move() {
+        this.squad.move(1.0 / 60);
+    }
+
+    /**
+     * Recounts the squad from scratch, the way it is built on creation.
+     */
+    @Benchmark
+    public void setLeftAndRight() {
+        this.squad.setLeftAndRight();
+    }
+}
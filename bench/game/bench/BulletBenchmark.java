@@ -0,0 +1,92 @@
+package game.bench;
+
+import java.awt.Color;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import game.collections.GameEnvironment;
+import game.geometry.Point;
+import game.geometry.Rectangle;
+import game.objects.Block;
+import game.objects.bullet.BulletSystem;
+
+/**
+ * @author Yuval Ezra.
+ * Benchmarks a tick of the BulletSystem, moving every live bullet one step, in a
+ * closed box with three shields of 5x5 Blocks to bounce off. The bullets are all
+ * the player's, so none of them cancel each other and their number stays the same.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulletBenchmark {
+
+    @Param({"10", "100", "1000", "5000"})
+    private int bullets;
+
+    @Param({"true", "false"})
+    private boolean parallel;
+
+    private GameEnvironment environment;
+    private BulletSystem system;
+
+    /**
+     * Builds the box and the shields.
+     */
+    @Setup(Level.Trial)
+    public void setUpEnvironment() {
+        this.environment = new GameEnvironment();
+        this.environment.addCollidable(new Block(new Rectangle(new Point(0, 0), 800, 20), Color.GRAY, -1));
+        this.environment.addCollidable(new Block(new Rectangle(new Point(0, 600), 800, 20), Color.GRAY, -1));
+        this.environment.addCollidable(new Block(new Rectangle(new Point(-20, 0), 20, 600), Color.GRAY, -1));
+        this.environment.addCollidable(new Block(new Rectangle(new Point(800, 0), 20, 600), Color.GRAY, -1));
+        double startX = 100;
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 140; j += 5) {
+                for (int k = 0; k < 15; k += 5) {
+                    Rectangle r = new Rectangle(new Point(startX + j, 500 + k), 5, 5);
+                    this.environment.addCollidable(new Block(r, Color.CYAN, -1));
+                }
+            }
+            startX += 230;
+        }
+    }
+
+    /**
+     * Fires the bullets again from random places.
+     */
+    @Setup(Level.Iteration)
+    public void setUpBullets() {
+        Random random = new Random(7);
+        this.system = new BulletSystem(this.environment);
+        this.system.setParallel(this.parallel);
+        for (int i = 0; i < this.bullets; i++) {
+            this.system.fire(10 + random.nextInt(780), 30 + random.nextInt(460), 3, random.nextInt(200) - 100,
+                             random.nextBoolean() ? 600 : -600, false, Color.WHITE);
+        }
+    }
+
+    /**
+     * Moves all the bullets one 60 FPS step.
+     */
+    @Benchmark
+    public void timePassed() {
+        this.system.timePassed(1.0 / 60);
+    }
+}
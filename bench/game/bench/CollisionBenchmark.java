@@ -0,0 +1,74 @@
+package game.bench;
+
+import java.awt.Color;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import game.collections.GameEnvironment;
+import game.geometry.Line;
+import game.geometry.Point;
+import game.geometry.Rectangle;
+import game.objects.Block;
+import game.objects.collidable.CollisionInfo;
+
+/**
+ * @author Yuval Ezra.
+ * Benchmarks GameEnvironment.getClosestCollisions against a screen full of
+ * shield-sized Blocks, with the trajectories of a frame's worth of bullet moves.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+
+    @Param({"50", "300", "1000"})
+    private int collidables;
+
+    private GameEnvironment environment;
+    private Line[] trajectories;
+    private int next;
+
+    /**
+     * Scatters the Blocks and the bullet trajectories over an 800x600 screen.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        this.environment = new GameEnvironment();
+        for (int i = 0; i < this.collidables; i++) {
+            Rectangle r = new Rectangle(new Point(random.nextInt(800), 20 + random.nextInt(580)), 5, 5);
+            this.environment.addCollidable(new Block(r, Color.CYAN, 1));
+        }
+        this.trajectories = new Line[1024];
+        for (int i = 0; i < this.trajectories.length; i++) {
+            double x = random.nextInt(800);
+            double y = 20 + random.nextInt(580);
+            this.trajectories[i] = new Line(x, y, x, y + (random.nextBoolean() ? 10 : -10));
+        }
+    }
+
+    /**
+     * @return the closest collisions of the next trajectory.
+     */
+    @Benchmark
+    public List<CollisionInfo> getClosestCollisions() {
+        this.next = (this.next + 1) & (this.trajectories.length - 1);
+        return this.environment.getClosestCollisions(this.trajectories[this.next]);
+    }
+}
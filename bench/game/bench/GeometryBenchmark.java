@@ -0,0 +1,81 @@
+package game.bench;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import game.geometry.Line;
+import game.geometry.Point;
+import game.geometry.Rectangle;
+
+/**
+ * @author Yuval Ezra.
+ * Benchmarks a single segment against rectangle test, through the border-lines
+ * path and through the slab test.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBenchmark {
+    private Rectangle[] rectangles;
+    private Line[] lines;
+    private int next;
+
+    /**
+     * Creates pairs of rectangles and segments, about half of which intersect.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        this.rectangles = new Rectangle[1024];
+        this.lines = new Line[1024];
+        for (int i = 0; i < this.lines.length; i++) {
+            this.rectangles[i] = new Rectangle(new Point(random.nextInt(40), random.nextInt(40)),
+                                               5 + random.nextInt(20), 5 + random.nextInt(20));
+            this.lines[i] = new Line(random.nextInt(60), random.nextInt(60), random.nextInt(60), random.nextInt(60));
+        }
+    }
+
+    /**
+     * @return the intersection points of the next pair.
+     */
+    @Benchmark
+    public List<Point> intersectionPoints() {
+        this.next = (this.next + 1) & (this.lines.length - 1);
+        return this.rectangles[this.next].intersectionPoints(this.lines[this.next]);
+    }
+
+    /**
+     * @return the closest intersection of the next pair.
+     */
+    @Benchmark
+    public Point closestIntersectionToStartOfLine() {
+        this.next = (this.next + 1) & (this.lines.length - 1);
+        return this.lines[this.next].closestIntersectionToStartOfLine(this.rectangles[this.next]);
+    }
+
+    /**
+     * @return the slab test's parameter for the next pair.
+     */
+    @Benchmark
+    public double intersectionParam() {
+        this.next = (this.next + 1) & (this.lines.length - 1);
+        Line l = this.lines[this.next];
+        return this.rectangles[this.next].intersectionParam(l.start().getX(), l.start().getY(),
+                                                            l.end().getX(), l.end().getY());
+    }
+}
@@ -0,0 +1,71 @@
+package game.bench;
+
+import java.awt.Color;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import game.collections.SpriteCollection;
+import game.geometry.Point;
+import game.geometry.Rectangle;
+import game.headless.NullDrawSurface;
+import game.objects.Block;
+
+/**
+ * @author Yuval Ezra.
+ * Benchmarks a frame's worth of SpriteCollection work, with the drawing itself
+ * going to a NullDrawSurface.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpriteCollectionBenchmark {
+
+    @Param({"50", "400", "2000"})
+    private int sprites;
+
+    private SpriteCollection collection;
+    private NullDrawSurface surface;
+
+    /**
+     * Fills the collection with 5x5 Blocks.
+     */
+    @Setup
+    public void setUp() {
+        this.collection = new SpriteCollection();
+        for (int i = 0; i < this.sprites; i++) {
+            Rectangle r = new Rectangle(new Point((i * 5) % 800, 20 + (i / 160) * 5), 5, 5);
+            this.collection.addSprite(new Block(r, Color.CYAN, 1));
+        }
+        this.surface = new NullDrawSurface(800, 600);
+    }
+
+    /**
+     * Notifies all the sprites of a 60 FPS step.
+     */
+    @Benchmark
+    public void notifyAllTimePassed() {
+        this.collection.notifyAllTimePassed(1.0 / 60);
+    }
+
+    /**
+     * Draws all the sprites.
+     */
+    @Benchmark
+    public void drawAllOn() {
+        this.collection.drawAllOn(this.surface);
+    }
+}
@@ -1,14 +1,28 @@
 package game.animation;
 import biuoop.DrawSurface;
 import biuoop.GUI;
+import game.metrics.FrameMetrics;
 
 /**
  * @author Yuval Ezra.
  * An Animation Runner.
+ * SteppedAnimations are simulated in fixed steps of 1 / framesPerSecond: every
+ * drawn frame runs as many steps as the time that passed calls for, up to a cap,
+ * so the simulation keeps its pace when frames overrun.
  */
 public class AnimationRunner {
+   // the most simulation steps run for a single drawn frame
+   private static final int MAX_STEPS_PER_FRAME = 5;
+
    private GUI gui;
    private int framesPerSecond;
+   private biuoop.Sleeper sleeper;
+
+   // the timing of the SteppedAnimations' frames
+   private FrameMetrics metrics;
+
+   // the number of runs that returned, to tell when a step ran another Animation
+   private long finishedRuns;
 
    /**
     * A constructor for AnimationRunner.
@@ -18,6 +32,50 @@ public class AnimationRunner {
    public AnimationRunner(GUI gui, int framesPerSecond) {
        this.gui = gui;
        this.framesPerSecond = framesPerSecond;
+       this.sleeper = new biuoop.Sleeper();
+       this.metrics = new FrameMetrics();
+   }
+
+   /**
+    * A constructor for an AnimationRunner that has no GUI of its own. Such a
+    * runner must override run().
+    * @param framesPerSecond the number of FPS in the animation.
+    */
+   protected AnimationRunner(int framesPerSecond) {
+       this.gui = null;
+       this.framesPerSecond = framesPerSecond;
+       this.sleeper = new biuoop.Sleeper();
+       this.metrics = new FrameMetrics();
+   }
+
+   /**
+    * @return the number of FPS in the animation.
+    */
+   public int getFramesPerSecond() {
+       return this.framesPerSecond;
+   }
+
+   /**
+    * @return the number of frames so far that were late, and needed more than one
+    * simulation step to catch up.
+    */
+   public long getLateFrames() {
+       return this.metrics.getLateFrames();
+   }
+
+   /**
+    * @return the number of simulation steps so far that were skipped, because
+    * a frame was too late to catch up.
+    */
+   public long getDroppedSteps() {
+       return this.metrics.getDroppedSteps();
+   }
+
+   /**
+    * @return the frame metrics of the SteppedAnimations run so far.
+    */
+   public FrameMetrics getMetrics() {
+       return this.metrics;
    }
 
    /**
@@ -25,20 +83,99 @@ public class AnimationRunner {
     * @param animation the Animation to run.
     */
    public void run(Animation animation) {
-      biuoop.Sleeper sleeper = new biuoop.Sleeper();
-      int millisecondsPerFrame = 1000 / this.framesPerSecond;
-      while (!animation.shouldStop()) {
-         long startTime = System.currentTimeMillis(); // timing
-         DrawSurface d = gui.getDrawSurface();
-
-         animation.doOneFrame(d, 1.0 / this.framesPerSecond);
-
-         gui.show(d);
-         long usedTime = System.currentTimeMillis() - startTime;
-         long milliSecondLeftToSleep = millisecondsPerFrame - usedTime;
-         if (milliSecondLeftToSleep > 0) {
-             sleeper.sleepFor(milliSecondLeftToSleep);
+      try {
+         if (animation instanceof SteppedAnimation) {
+            this.runStepped((SteppedAnimation) animation);
+            return;
          }
+         long nanosPerFrame = 1000000000L / this.framesPerSecond;
+         while (!animation.shouldStop()) {
+            long startTime = System.nanoTime(); // timing
+            DrawSurface d = gui.getDrawSurface();
+
+            animation.doOneFrame(d, 1.0 / this.framesPerSecond);
+
+            gui.show(d);
+            this.sleepUntil(startTime + nanosPerFrame);
+         }
+      } finally {
+         this.finishedRuns++;
+      }
+   }
+
+   /**
+    * Runs a SteppedAnimation in fixed steps, drawing once per frame.
+    * @param animation the SteppedAnimation to run.
+    */
+   private void runStepped(SteppedAnimation animation) {
+      long nanosPerStep = 1000000000L / this.framesPerSecond;
+      double dt = 1.0 / this.framesPerSecond;
+
+      // the first frame runs a step right away
+      long accumulator = nanosPerStep;
+      long previous = System.nanoTime();
+      boolean stop = animation.shouldStop();
+      while (!stop) {
+         long startTime = System.nanoTime();
+         long frameTime = startTime - previous;
+         previous = startTime;
+
+         // a stall of the whole frame is caught up on only up to the cap
+         accumulator += Math.min(frameTime, MAX_STEPS_PER_FRAME * nanosPerStep);
+
+         int steps = 0;
+         boolean resumed = false;
+         while (accumulator >= nanosPerStep && steps < MAX_STEPS_PER_FRAME && !stop && !resumed) {
+            long runs = this.finishedRuns;
+            long updateStart = System.nanoTime();
+            animation.update(dt);
+            this.metrics.record(FrameMetrics.Phase.UPDATE, System.nanoTime() - updateStart);
+            accumulator -= nanosPerStep;
+            steps++;
+            stop = animation.shouldStop();
+
+            // the step ran another Animation (a pause screen, for one). The time it took
+            // isn't caught up on - the simulation goes on from where it stopped.
+            if (this.finishedRuns != runs) {
+               resumed = true;
+               accumulator = 0;
+               previous = System.nanoTime();
+            }
+         }
+         if (steps > 1) {
+            this.metrics.frameLate();
+         }
+
+         // too far behind - skip what's left instead of spiralling
+         if (accumulator >= nanosPerStep) {
+            this.metrics.stepsDropped(accumulator / nanosPerStep);
+            accumulator %= nanosPerStep;
+         }
+
+         // nothing new to draw if no step was due yet
+         if (steps > 0) {
+            long drawStart = System.nanoTime();
+            DrawSurface d = gui.getDrawSurface();
+            animation.render(d, (double) accumulator / nanosPerStep);
+            long showStart = System.nanoTime();
+            gui.show(d);
+            this.metrics.record(FrameMetrics.Phase.DRAW, showStart - drawStart);
+            this.metrics.record(FrameMetrics.Phase.SHOW, System.nanoTime() - showStart);
+         }
+
+         // sleep until the next step is due
+         this.sleepUntil(startTime + nanosPerStep - accumulator);
+      }
+   }
+
+   /**
+    * Sleeps until System.nanoTime() reaches 'deadline'.
+    * @param deadline the time to sleep until.
+    */
+   private void sleepUntil(long deadline) {
+      long millisecondsLeftToSleep = (deadline - System.nanoTime() + 999999) / 1000000;
+      if (millisecondsLeftToSleep > 0) {
+          this.sleeper.sleepFor(millisecondsLeftToSleep);
       }
    }
-}
\ No newline at end of file
+}
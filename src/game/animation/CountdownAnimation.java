@@ -14,11 +14,8 @@ public class CountdownAnimation implements Animation {
     private int currentCount;
     private SpriteCollection gameScreen;
 
-    // the time in which the countdown should stop
-    private long finishTime;
-
-    // checking whether it's the start of the countdown
-    private boolean start;
+    // the animation time that passed since the countdown started
+    private double elapsed;
 
     /**
      * A constructor for CountdownAnimation.
@@ -34,8 +31,7 @@ public class CountdownAnimation implements Animation {
         this.countFrom = countFrom;
         this.gameScreen = gameScreen;
         this.currentCount = countFrom;
-        this.finishTime = System.currentTimeMillis() + (long) numOfSeconds * 1000;
-        this.start = true;
+        this.elapsed = 0;
     }
 
     /**
@@ -45,32 +41,23 @@ public class CountdownAnimation implements Animation {
      */
     public void doOneFrame(DrawSurface d, double dt) {
 
-        // start time
-        long startTime = System.currentTimeMillis();
+        // the number that should be shown at this point of the countdown
+        double secondsPerNumber = this.numOfSeconds / this.countFrom;
+        this.currentCount = this.countFrom - (int) (this.elapsed / secondsPerNumber);
 
         // the text that would be drawn
         String text = Integer.toString(this.currentCount);
 
         // drawing the screen and the countdown
         this.gameScreen.drawAllOn(d);
-        if (this.currentCount != 0) {
+        if (this.currentCount > 0) {
             d.setColor(Color.ORANGE);
             d.drawText(d.getWidth() / 2 - 15, d.getHeight() / 2 - 15, text, 100);
         }
-        long overallTime = System.currentTimeMillis() - startTime;
-
-        // if it's not the first number to be drawn, wait until this number's
-        // time is over, and then move on to the next number in the countdown
-        if (!this.start) {
-            while (overallTime < 1000 * this.numOfSeconds / this.countFrom) {
-                overallTime = System.currentTimeMillis() - startTime;
-            }
-        } else {
-            this.start = false;
-        }
 
-        // moving on to the next number on the countdown
-        this.currentCount--;
+        // the countdown moves with the animation's time rather than the wall clock,
+        // so it lasts as many frames no matter how fast they are run
+        this.elapsed += dt;
     }
 
     /**
@@ -78,6 +65,6 @@ public class CountdownAnimation implements Animation {
      * @return true if it should stop, else otherwise.
      */
     public boolean shouldStop() {
-        return System.currentTimeMillis() >= finishTime;
+        return this.elapsed >= this.numOfSeconds;
     }
-}
\ No newline at end of file
+}
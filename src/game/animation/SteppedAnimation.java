@@ -0,0 +1,24 @@
+package game.animation;
+import biuoop.DrawSurface;
+
+/**
+ * @author Yuval Ezra.
+ * An Animation whose simulation can be stepped apart from its drawing, so an
+ * AnimationRunner could run several simulation steps for a single drawn frame.
+ */
+public interface SteppedAnimation extends Animation {
+
+   /**
+    * Advances the animation's simulation by a single step, without drawing.
+    * @param dt the length of the step.
+    */
+   void update(double dt);
+
+   /**
+    * Draws the animation's current state.
+    * @param d the DrawSurface to draw the animation on.
+    * @param alpha how far, as a fraction of a step, the drawn frame is past the
+    * last simulation step. May be used to interpolate positions.
+    */
+   void render(DrawSurface d, double alpha);
+}
@@ -1,23 +1,50 @@
 package game.collections;
 
+import java.util.concurrent.atomic.LongAdder;
+
+import game.geometry.Contact;
 import game.geometry.Line;
 import game.geometry.Point;
 import game.objects.collidable.Collidable;
 import game.objects.collidable.CollisionInfo;
+import game.objects.collidable.CollisionLayer;
 
 /**
  * @author Yuval Ezra
  * A game environment.
+ * The Collidables are kept in a spatial index per CollisionLayer, so a query only looks
+ * at the layers in its mask. Queries given a Query of their own write nothing shared, so
+ * several threads can run them at once while the environment doesn't change.
  */
 public class GameEnvironment {
 
-    private java.util.List<Collidable> obstacles;
+    // the default area covered by the spatial index, and its cells' size
+    private static final int WIDTH = 800;
+    private static final int HEIGHT = 600;
+    private static final int CELL_SIZE = 32;
+
+    private SpatialGrid[] grids;
+
+    // reused between queries for the grid's candidates, the closest of them, and the contact with it
+    private Query query;
+    private java.util.List<Collidable> closest;
+    private Contact closestContact;
+
+    // the time spent in collision queries since it was last taken, by any thread
+    private LongAdder collisionNanos;
 
     /**
      * A GameEnvironemnt constructor.
      */
     public GameEnvironment() {
-        this.obstacles = new java.util.LinkedList<Collidable>();
+        this.grids = new SpatialGrid[CollisionLayer.values().length];
+        for (int i = 0; i < this.grids.length; i++) {
+            this.grids[i] = new SpatialGrid(WIDTH, HEIGHT, CELL_SIZE);
+        }
+        this.query = new Query();
+        this.closest = new java.util.ArrayList<Collidable>();
+        this.closestContact = new Contact();
+        this.collisionNanos = new LongAdder();
     }
 
     /**
@@ -25,8 +52,10 @@ public class GameEnvironment {
      * @param obstacles the obstacles to add to this GameEnvironment.
      */
     public GameEnvironment(java.util.List<Collidable> obstacles) {
-        this.obstacles = new java.util.LinkedList<Collidable>();
-        this.obstacles.addAll(obstacles);
+        this();
+        for (Collidable c : obstacles) {
+            this.addCollidable(c);
+        }
     }
 
     /**
@@ -34,7 +63,7 @@ public class GameEnvironment {
      * @param c the new Collidable to add for the GameEnvironment.
      */
     public void addCollidable(Collidable c) {
-        this.obstacles.add(c);
+        this.grids[c.getLayer().ordinal()].add(c);
     }
 
     /**
@@ -42,14 +71,46 @@ public class GameEnvironment {
      * @param c the Collidable to remove from this GameEnvironment.
      */
     public void removeCollidable(Collidable c) {
-        this.obstacles.remove(c);
+        this.grids[c.getLayer().ordinal()].remove(c);
+    }
+
+    /**
+     * Updates the spatial index after Collidable c's collision Rectangle has moved
+     * or changed. Must be called by Collidables that move while in this GameEnvironment.
+     * @param c the Collidable that moved.
+     */
+    public void updateCollidable(Collidable c) {
+        this.grids[c.getLayer().ordinal()].update(c);
     }
 
     /**
-     * @return this GameEnvironemnt's obstacles.
+     * @return a new List of this GameEnvironemnt's obstacles, layer by layer.
      */
     public java.util.List<Collidable> getObstacles() {
-        return this.obstacles;
+        java.util.List<Collidable> obstacles = new java.util.ArrayList<Collidable>(this.size());
+        for (SpatialGrid grid : this.grids) {
+            grid.collidables(obstacles);
+        }
+        return obstacles;
+    }
+
+    /**
+     * @return the number of Collidables in this GameEnvironment.
+     */
+    public int size() {
+        int size = 0;
+        for (SpatialGrid grid : this.grids) {
+            size += grid.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the time spent looking for collisions since the last call, and starts counting again.
+     * @return the time spent in collision queries, in nanoseconds.
+     */
+    public long takeCollisionNanos() {
+        return this.collisionNanos.sumThenReset();
     }
 
     /**
@@ -60,34 +121,44 @@ public class GameEnvironment {
      * about the closest collision that is going to occur.
      */
     public CollisionInfo getClosestCollision(Line trajectory) {
-        Point closestCollision = null;
-        Collidable closestCollidable = null;
-
-        // Go over all obstacles
-        for (Collidable c : this.obstacles) {
-            Point collision = trajectory.closestIntersectionToStartOfLine(c.getCollisionRectangle());
+        return this.getClosestCollision(trajectory, CollisionLayer.ALL);
+    }
 
-            // If there's an intersection between the obstacle and the trajectory
-            if (collision != null) {
+    /**
+     * Assume an object moving from line.start() to line.end().
+     * @param trajectory the moving object's trajectory.
+     * @param mask the CollisionLayers the object collides with.
+     * @return If this object will not collide with any of the Collidables
+     * in these layers, return null. Else, return the information
+     * about the closest collision that is going to occur.
+     */
+    public CollisionInfo getClosestCollision(Line trajectory, int mask) {
+        long start = System.nanoTime();
+        double x1 = trajectory.start().getX();
+        double y1 = trajectory.start().getY();
+        double x2 = trajectory.end().getX();
+        double y2 = trajectory.end().getY();
+        double closestT = -1;
+        Collidable closestCollidable = null;
 
-                // If there's no closest Collidable, make this one the new closest
-                if (closestCollision == null) {
-                    closestCollidable = c;
-                    closestCollision = collision;
-                } else if (trajectory.start().distance(collision) < trajectory.start().distance(closestCollision)) {
+        // Go over the obstacles near the trajectory
+        for (Collidable c : this.candidatesNear(x1, y1, x2, y2, 0, mask, this.query.candidates)) {
+            double t = c.timeOfImpact(x1, y1, x2, y2, 0, this.query.contact);
 
-                    // And if there is already one, and that obstacle's distance from the start of the line is shorter
-                    // make it the new closest Collidable.
-                    closestCollidable = c;
-                    closestCollision = collision;
-                }
+            // If there's an intersection, and it's closer to the start of the line than
+            // the closest one so far, make this obstacle the new closest Collidable.
+            if (t >= 0 && (closestCollidable == null || t < closestT)) {
+                closestCollidable = c;
+                closestT = t;
+                this.closestContact.set(this.query.contact);
             }
         }
-        if (closestCollision == null) {
+        this.collisionNanos.add(System.nanoTime() - start);
+        if (closestCollidable == null) {
             return null;
         }
-        CollisionInfo info = new CollisionInfo(closestCollision, closestCollidable);
-        return info;
+        Point collision = new Point(this.closestContact.getX(), this.closestContact.getY());
+        return new CollisionInfo(collision, closestCollidable);
     }
 
     /**
@@ -96,31 +167,132 @@ public class GameEnvironment {
      * would cross.
      */
     public java.util.List<CollisionInfo> getClosestCollisions(Line trajectory) {
-        java.util.List<CollisionInfo> collisions = new java.util.LinkedList<>();
-        double minDistance = trajectory.length();
-
-        // Go over all obstacles
-        for (Collidable c : this.obstacles) {
-            Point collision = trajectory.closestIntersectionToStartOfLine(c.getCollisionRectangle());
-
-            // If there's an intersection between the obstacle and the trajectory
-            if (collision != null) {
-
-                // If it's the new closest obstacle, clear the list and add it
-                if (trajectory.start().distance(collision) < minDistance) {
-                    minDistance = trajectory.start().distance(collision);
-                    collisions.clear();
-                    collisions.add(new CollisionInfo(collision, c));
-                } else if (trajectory.start().distance(collision) == minDistance) {
-
-                    // If its distance is equal to to other obstacles, add it to the list.
-                    collisions.add(new CollisionInfo(collision, c));
-                }
-            }
-        }
-        if (collisions.size() == 0) {
+        return this.getClosestCollisions(trajectory, CollisionLayer.ALL);
+    }
+
+    /**
+     * @param trajectory the Object's trajectory
+     * @param mask the CollisionLayers the object collides with.
+     * @return A list of CollisionInfos, containing the Collidables in these layers
+     * the trajectory would cross.
+     */
+    public java.util.List<CollisionInfo> getClosestCollisions(Line trajectory, int mask) {
+        double x1 = trajectory.start().getX();
+        double y1 = trajectory.start().getY();
+        double x2 = trajectory.end().getX();
+        double y2 = trajectory.end().getY();
+        double minT = this.getClosestCollidables(x1, y1, x2, y2, 0, mask, this.closest, this.closestContact);
+        if (minT < 0) {
             return null;
         }
+
+        // all the closest obstacles share the same collision point
+        Point collision = new Point(this.closestContact.getX(), this.closestContact.getY());
+        java.util.List<CollisionInfo> collisions = new java.util.ArrayList<>(this.closest.size());
+        for (Collidable c : this.closest) {
+            collisions.add(new CollisionInfo(collision, c));
+        }
         return collisions;
     }
+
+    /**
+     * Finds the Collidables a circle moving from (x1, y1) to (x2, y2) touches first, without
+     * creating any objects.
+     * @param x1 the circle's center's start x.
+     * @param y1 the circle's center's start y.
+     * @param x2 the circle's center's end x.
+     * @param y2 the circle's center's end y.
+     * @param radius the circle's radius. 0 finds the Collidables a segment touches first.
+     * @param mask the CollisionLayers to look in.
+     * @param found cleared, and filled with the Collidables the circle touches first.
+     * @param first filled with the contact with the first of them.
+     * @return the time of impact, as the path's parameter t in [0, 1], or -1 if the
+     * circle doesn't touch any Collidable.
+     */
+    public double getClosestCollidables(double x1, double y1, double x2, double y2, double radius, int mask,
+                                        java.util.List<Collidable> found, Contact first) {
+        return this.getClosestCollidables(x1, y1, x2, y2, radius, mask, found, first, this.query);
+    }
+
+    /**
+     * Finds the Collidables a circle moving from (x1, y1) to (x2, y2) touches first, using
+     * the scratch space of 'q'. Threads with a Query each can call this at once, as long as
+     * no Collidable is added, removed or changed meanwhile.
+     * @param x1 the circle's center's start x.
+     * @param y1 the circle's center's start y.
+     * @param x2 the circle's center's end x.
+     * @param y2 the circle's center's end y.
+     * @param radius the circle's radius. 0 finds the Collidables a segment touches first.
+     * @param mask the CollisionLayers to look in.
+     * @param found cleared, and filled with the Collidables the circle touches first.
+     * @param first filled with the contact with the first of them.
+     * @param q the query's scratch space.
+     * @return the time of impact, as the path's parameter t in [0, 1], or -1 if the
+     * circle doesn't touch any Collidable.
+     */
+    public double getClosestCollidables(double x1, double y1, double x2, double y2, double radius, int mask,
+                                        java.util.List<Collidable> found, Contact first, Query q) {
+        long start = System.nanoTime();
+        double minT = -1;
+        found.clear();
+
+        // Go over the obstacles near the path
+        for (Collidable c : this.candidatesNear(x1, y1, x2, y2, radius, mask, q.candidates)) {
+            double t = c.timeOfImpact(x1, y1, x2, y2, radius, q.contact);
+
+            // If it's the new closest obstacle, clear the list and add it
+            if (t >= 0 && (minT < 0 || t < minT)) {
+                minT = t;
+                found.clear();
+                found.add(c);
+                first.set(q.contact);
+            } else if (t >= 0 && t == minT) {
+
+                // If its distance is equal to to other obstacles, add it to the list.
+                found.add(c);
+            }
+        }
+        this.collisionNanos.add(System.nanoTime() - start);
+        return minT;
+    }
+
+    /**
+     * @param x1 the trajectory's start x.
+     * @param y1 the trajectory's start y.
+     * @param x2 the trajectory's end x.
+     * @param y2 the trajectory's end y.
+     * @param radius how far from the trajectory to look.
+     * @param mask the CollisionLayers to look in.
+     * @param out cleared, and filled with the candidates.
+     * @return 'out', with the Collidables in these layers whose grid cells touch the trajectory's
+     * bounding box, grown by 'radius'.
+     */
+    private java.util.List<Collidable> candidatesNear(double x1, double y1, double x2, double y2, double radius,
+                                                      int mask, java.util.List<Collidable> out) {
+        out.clear();
+        for (int i = 0; i < this.grids.length; i++) {
+            if ((mask & (1 << i)) != 0 && this.grids[i].size() > 0) {
+                this.grids[i].query(Math.min(x1, x2) - radius, Math.min(y1, y2) - radius,
+                                    Math.max(x1, x2) + radius, Math.max(y1, y2) + radius, out);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * The scratch space of a collision query: the candidates it looks at, and the contact
+     * with each of them.
+     */
+    public static class Query {
+        private java.util.List<Collidable> candidates;
+        private Contact contact;
+
+        /**
+         * A constructor for Query.
+         */
+        public Query() {
+            this.candidates = new java.util.ArrayList<Collidable>();
+            this.contact = new Contact();
+        }
+    }
 }
@@ -0,0 +1,206 @@
+package game.collections;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import game.geometry.Rectangle;
+import game.objects.collidable.Collidable;
+
+/**
+ * @author Yuval Ezra
+ * A uniform grid of buckets. Every Collidable is kept in each of the cells its
+ * collision Rectangle covers, so a query only has to look at the Collidables
+ * near the queried area. Anything outside of the grid is clamped into its edge cells.
+ */
+public class SpatialGrid {
+    private double cellSize;
+    private int cols;
+    private int rows;
+    private List<List<Entry>> cells;
+    private Map<Collidable, Entry> entries;
+
+    /**
+     * A constructor for SpatialGrid.
+     * @param width the width of the area covered by the grid.
+     * @param height the height of the area covered by the grid.
+     * @param cellSize the width and height of a single cell.
+     */
+    public SpatialGrid(double width, double height, double cellSize) {
+        this.cellSize = cellSize;
+        this.cols = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        this.cells = new ArrayList<>(this.cols * this.rows);
+        for (int i = 0; i < this.cols * this.rows; i++) {
+            this.cells.add(new ArrayList<Entry>());
+        }
+        this.entries = new LinkedHashMap<>();
+    }
+
+    /**
+     * Adds Collidable c to the cells its collision Rectangle covers.
+     * @param c the Collidable to add.
+     */
+    public void add(Collidable c) {
+        if (this.entries.containsKey(c)) {
+            return;
+        }
+        Entry e = new Entry(c);
+        this.setRange(e, c.getCollisionRectangle());
+        this.entries.put(c, e);
+        this.insert(e);
+    }
+
+    /**
+     * Removes Collidable c from this grid.
+     * @param c the Collidable to remove.
+     */
+    public void remove(Collidable c) {
+        Entry e = this.entries.remove(c);
+        if (e != null) {
+            this.erase(e);
+        }
+    }
+
+    /**
+     * Re-buckets Collidable c after its collision Rectangle has changed.
+     * Nothing is done if c still covers the same cells, or if it is not in the grid.
+     * @param c the Collidable that moved.
+     */
+    public void update(Collidable c) {
+        Entry e = this.entries.get(c);
+        if (e == null) {
+            return;
+        }
+        Rectangle r = c.getCollisionRectangle();
+        double x = r.getUpperLeft().getX();
+        double y = r.getUpperLeft().getY();
+        if (this.col(x) == e.minCol && this.col(x + r.getWidth()) == e.maxCol
+                && this.row(y) == e.minRow && this.row(y + r.getHeight()) == e.maxRow) {
+            return;
+        }
+        this.erase(e);
+        this.setRange(e, r);
+        this.insert(e);
+    }
+
+    /**
+     * Adds to 'out' every Collidable whose cells intersect the cells of the given area.
+     * Each Collidable is added once, even if it covers several of the queried cells.
+     * @param minX the area's left X.
+     * @param minY the area's top Y.
+     * @param maxX the area's right X.
+     * @param maxY the area's bottom Y.
+     * @param out the List to add the candidates to.
+     */
+    public void query(double minX, double minY, double maxX, double maxY, List<Collidable> out) {
+        int minCol = this.col(minX);
+        int maxCol = this.col(maxX);
+        int minRow = this.row(minY);
+        int maxRow = this.row(maxY);
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minCol; c <= maxCol; c++) {
+                List<Entry> cell = this.cells.get(r * this.cols + c);
+                for (int i = 0; i < cell.size(); i++) {
+                    Entry e = cell.get(i);
+
+                    // only report an entry in the first queried cell it shares with the query
+                    if (c == Math.max(e.minCol, minCol) && r == Math.max(e.minRow, minRow)) {
+                        out.add(e.collidable);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds every Collidable in this grid to 'out', in the order they were added.
+     * @param out the List to add the Collidables to.
+     */
+    public void collidables(List<Collidable> out) {
+        for (Entry e : this.entries.values()) {
+            out.add(e.collidable);
+        }
+    }
+
+    /**
+     * @return the number of Collidables in this grid.
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * @param x an X coordinate.
+     * @return the column of 'x', clamped into the grid.
+     */
+    private int col(double x) {
+        return Math.min(this.cols - 1, Math.max(0, (int) Math.floor(x / this.cellSize)));
+    }
+
+    /**
+     * @param y a Y coordinate.
+     * @return the row of 'y', clamped into the grid.
+     */
+    private int row(double y) {
+        return Math.min(this.rows - 1, Math.max(0, (int) Math.floor(y / this.cellSize)));
+    }
+
+    /**
+     * Sets the cell range of Entry e to the cells covered by Rectangle r.
+     * @param e the Entry.
+     * @param r the Entry's collision Rectangle.
+     */
+    private void setRange(Entry e, Rectangle r) {
+        double x = r.getUpperLeft().getX();
+        double y = r.getUpperLeft().getY();
+        e.minCol = this.col(x);
+        e.maxCol = this.col(x + r.getWidth());
+        e.minRow = this.row(y);
+        e.maxRow = this.row(y + r.getHeight());
+    }
+
+    /**
+     * Puts Entry e in all the cells of its range.
+     * @param e the Entry.
+     */
+    private void insert(Entry e) {
+        for (int r = e.minRow; r <= e.maxRow; r++) {
+            for (int c = e.minCol; c <= e.maxCol; c++) {
+                this.cells.get(r * this.cols + c).add(e);
+            }
+        }
+    }
+
+    /**
+     * Takes Entry e out of all the cells of its range.
+     * @param e the Entry.
+     */
+    private void erase(Entry e) {
+        for (int r = e.minRow; r <= e.maxRow; r++) {
+            for (int c = e.minCol; c <= e.maxCol; c++) {
+                this.cells.get(r * this.cols + c).remove(e);
+            }
+        }
+    }
+
+    /**
+     * A Collidable and the range of cells it is kept in.
+     */
+    private static class Entry {
+        private Collidable collidable;
+        private int minCol;
+        private int maxCol;
+        private int minRow;
+        private int maxRow;
+
+        /**
+         * A constructor for Entry.
+         * @param collidable the Collidable of this Entry.
+         */
+        Entry(Collidable collidable) {
+            this.collidable = collidable;
+        }
+    }
+}
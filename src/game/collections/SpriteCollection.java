@@ -1,21 +1,39 @@
 package game.collections;
-import java.util.LinkedList;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 import biuoop.DrawSurface;
-import game.objects.bullet.Bullet;
 import game.objects.sprite.Sprite;
 /**
  * @author Yuval Ezra
  * A sprite collection.
+ * The Sprites are kept in an array, in the order they were added. Removing a Sprite
+ * empties its slot, and the empty slots are compacted at the end of a tick. Sprites
+ * added while the collection is being notified join it once the tick is over.
  */
 public class SpriteCollection {
-    private java.util.List<Sprite> sprites;
+    private List<Sprite> sprites;
+
+    // each Sprite's slot in 'sprites', or in 'pendingAdds' if it was added during this tick
+    private Map<Sprite, Slot> slots;
+
+    // Sprites added during a tick, and the number of slots emptied since the last compaction
+    private List<Sprite> pendingAdds;
+    private int emptySlots;
+    private boolean notifying;
 
     /**
      * A SpriteCollection constructor.
      */
     public SpriteCollection() {
-        this.sprites = new java.util.LinkedList<Sprite>();
+        this.sprites = new ArrayList<Sprite>();
+        this.slots = new IdentityHashMap<Sprite, Slot>();
+        this.pendingAdds = new ArrayList<Sprite>();
+        this.emptySlots = 0;
+        this.notifying = false;
     }
 
     /**
@@ -23,6 +41,17 @@ public class SpriteCollection {
      * @param s a Sprite to add to the collection.
      */
     public void addSprite(Sprite s) {
+        if (this.slots.containsKey(s)) {
+            return;
+        }
+        if (this.notifying) {
+            Slot slot = new Slot(this.pendingAdds.size());
+            slot.pending = true;
+            this.slots.put(s, slot);
+            this.pendingAdds.add(s);
+            return;
+        }
+        this.slots.put(s, new Slot(this.sprites.size()));
         this.sprites.add(s);
     }
 
@@ -31,7 +60,23 @@ public class SpriteCollection {
      * @param s the Sprite to remove from this SpriteCollection.
      */
     public void removeSprite(Sprite s) {
-        this.sprites.remove(s);
+        Slot slot = this.slots.remove(s);
+        if (slot == null) {
+            return;
+        }
+        if (slot.pending) {
+
+            // it was added during this tick, so it is dropped when the tick's additions are applied
+            this.pendingAdds.set(slot.index, null);
+            return;
+        }
+        this.sprites.set(slot.index, null);
+        this.emptySlots++;
+
+        // outside of a tick, don't let the empty slots pile up
+        if (!this.notifying && this.emptySlots > this.sprites.size() / 2) {
+            this.compact();
+        }
     }
 
     /**
@@ -39,30 +84,84 @@ public class SpriteCollection {
      * @param dt the time interval between frames.
      */
     public void notifyAllTimePassed(double dt) {
-        LinkedList<Sprite> copy = new LinkedList<>(this.sprites);
-        for (Sprite s : copy) {
-            s.timePassed(dt);
+        this.notifying = true;
+        int size = this.sprites.size();
+        for (int i = 0; i < size; i++) {
+            Sprite s = this.sprites.get(i);
+            if (s != null) {
+                s.timePassed(dt);
+            }
         }
-    }
+        this.notifying = false;
 
-    /**
-     * Removes all Balls from this SpriteCollection.
-     */
-    public void removeBalls() {
-        LinkedList<Sprite> copy = new LinkedList<>(this.sprites);
-        for (Sprite s : copy) {
-            if (s instanceof Bullet) {
-                this.removeSprite(s);
+        // apply the changes made during the tick
+        if (this.emptySlots > 0) {
+            this.compact();
+        }
+        for (int i = 0; i < this.pendingAdds.size(); i++) {
+            Sprite s = this.pendingAdds.get(i);
+            if (s != null) {
+                Slot slot = this.slots.get(s);
+                slot.pending = false;
+                slot.index = this.sprites.size();
+                this.sprites.add(s);
             }
         }
+        this.pendingAdds.clear();
     }
+
     /**
      * call drawOn(d) on all Sprites.
      * @param d a surface to draw on the sprites.
      */
     public void drawAllOn(DrawSurface d) {
-        for (Sprite s : this.sprites) {
-            s.drawOn(d);
+        for (int i = 0; i < this.sprites.size(); i++) {
+            Sprite s = this.sprites.get(i);
+            if (s != null) {
+                s.drawOn(d);
+            }
+        }
+    }
+
+    /**
+     * @return the number of Sprites in this SpriteCollection.
+     */
+    public int size() {
+        return this.slots.size();
+    }
+
+    /**
+     * Moves the Sprites over the empty slots, keeping their order.
+     */
+    private void compact() {
+        int size = this.sprites.size();
+        int next = 0;
+        for (int i = 0; i < size; i++) {
+            Sprite s = this.sprites.get(i);
+            if (s != null) {
+                this.slots.get(s).index = next;
+                this.sprites.set(next, s);
+                next++;
+            }
+        }
+        this.sprites.subList(next, size).clear();
+        this.emptySlots = 0;
+    }
+
+    /**
+     * The index of a Sprite in the array, or in the tick's additions if it is pending,
+     * updated whenever it is moved.
+     */
+    private static class Slot {
+        private int index;
+        private boolean pending;
+
+        /**
+         * A constructor for Slot.
+         * @param index the Sprite's index.
+         */
+        Slot(int index) {
+            this.index = index;
         }
     }
 }
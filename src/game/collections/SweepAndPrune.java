@@ -0,0 +1,128 @@
+package game.collections;
+
+import java.util.Arrays;
+
+/**
+ * @author Yuval Ezra
+ * A sort-and-sweep broadphase along the X axis. The entities are kept sorted by the left edge
+ * of their extent, and the order is kept from one tick to the next. Entities move little in a
+ * tick, so an insertion sort puts the order back in nearly linear time. Sweeping two sorted
+ * broadphases together then finds every pair of an entity from each whose extents overlap on
+ * the X axis, without testing all pairs.
+ * Entities are indices into the owner's arrays, and their extents are read from the arrays
+ * given to update() and sweep().
+ */
+public class SweepAndPrune {
+
+    /**
+     * Handles a pair of entities whose extents overlap on the X axis.
+     */
+    public interface PairHandler {
+        /**
+         * Handles the candidate pair (a, b).
+         * @param a the entity from the broadphase that was swept.
+         * @param b the entity from the other broadphase.
+         */
+        void pair(int a, int b);
+    }
+
+    // the entities, sorted by the left edge of their extent as of the last update()
+    private int[] order;
+    private int size;
+
+    /**
+     * A constructor for SweepAndPrune.
+     */
+    public SweepAndPrune() {
+        this.order = new int[64];
+        this.size = 0;
+    }
+
+    /**
+     * @return the number of entities in the broadphase.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Adds an entity. It is put in its place by the next update().
+     * @param e the entity's index.
+     */
+    public void add(int e) {
+        if (this.size == this.order.length) {
+            this.order = Arrays.copyOf(this.order, this.size * 2);
+        }
+        this.order[this.size++] = e;
+    }
+
+    /**
+     * Sorts the entities again by their extents' left edges.
+     * @param lo the left edge of every entity's extent.
+     */
+    public void update(double[] lo) {
+        // an insertion sort, which is close to linear on the order left from the last tick
+        for (int i = 1; i < this.size; i++) {
+            int e = this.order[i];
+            double key = lo[e];
+            int j = i - 1;
+            while (j >= 0 && lo[this.order[j]] > key) {
+                this.order[j + 1] = this.order[j];
+                j--;
+            }
+            this.order[j + 1] = e;
+        }
+    }
+
+    /**
+     * Renames the entities after their owner moved them around, keeping their order.
+     * @param newIndex every entity's new index, or -1 if it was dropped.
+     */
+    public void remap(int[] newIndex) {
+        int kept = 0;
+        for (int i = 0; i < this.size; i++) {
+            int e = newIndex[this.order[i]];
+            if (e >= 0) {
+                this.order[kept++] = e;
+            }
+        }
+        this.size = kept;
+    }
+
+    /**
+     * Removes all of the entities.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Hands every pair of an entity of this broadphase and an entity of 'other' whose extents
+     * overlap on the X axis to 'handler'. Both broadphases must be updated with the same extents.
+     * @param lo the left edge of every entity's extent.
+     * @param hi the right edge of every entity's extent.
+     * @param other the other broadphase.
+     * @param handler the handler of the candidate pairs.
+     */
+    public void sweep(double[] lo, double[] hi, SweepAndPrune other, PairHandler handler) {
+        int[] mine = this.order;
+        int[] theirs = other.order;
+        int i = 0;
+        int j = 0;
+
+        // the entity that starts first is paired with the other side's entities that start before it ends
+        while (i < this.size && j < other.size) {
+            if (lo[mine[i]] <= lo[theirs[j]]) {
+                int a = mine[i++];
+                for (int k = j; k < other.size && lo[theirs[k]] <= hi[a]; k++) {
+                    handler.pair(a, theirs[k]);
+                }
+            } else {
+                int b = theirs[j++];
+                for (int k = i; k < this.size && lo[mine[k]] <= hi[b]; k++) {
+                    handler.pair(mine[k], b);
+                }
+            }
+        }
+    }
+}
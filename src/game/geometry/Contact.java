@@ -0,0 +1,91 @@
+package game.geometry;
+/**
+ * @author Yuval Ezra
+ * Where and when a moving circle first touches something: the time of impact as a
+ * parameter of its path, the contact point, and the normal of the surface there.
+ * A Contact is filled in place, so one can be reused for every query.
+ */
+public class Contact {
+
+    private double time;
+    private double x;
+    private double y;
+    private double normalX;
+    private double normalY;
+
+    /**
+     * A constructor for an empty Contact.
+     */
+    public Contact() {
+        this.time = -1;
+    }
+
+    /**
+     * Sets this Contact.
+     * @param t the time of impact, in [0, 1].
+     * @param px the contact point's x.
+     * @param py the contact point's y.
+     * @param nx the surface normal's x.
+     * @param ny the surface normal's y.
+     */
+    public void set(double t, double px, double py, double nx, double ny) {
+        this.time = t;
+        this.x = px;
+        this.y = py;
+        this.normalX = nx;
+        this.normalY = ny;
+    }
+
+    /**
+     * Copies another Contact into this one.
+     * @param other the Contact to copy.
+     */
+    public void set(Contact other) {
+        this.set(other.time, other.x, other.y, other.normalX, other.normalY);
+    }
+
+    /**
+     * Moves the contact point by (dx, dy).
+     * @param dx the distance to move on the X axis.
+     * @param dy the distance to move on the Y axis.
+     */
+    public void translate(double dx, double dy) {
+        this.x += dx;
+        this.y += dy;
+    }
+
+    /**
+     * @return the time of impact, as the parameter of the moving circle's path.
+     */
+    public double getTime() {
+        return this.time;
+    }
+
+    /**
+     * @return the contact point's x.
+     */
+    public double getX() {
+        return this.x;
+    }
+
+    /**
+     * @return the contact point's y.
+     */
+    public double getY() {
+        return this.y;
+    }
+
+    /**
+     * @return the x of the surface's unit normal at the contact point.
+     */
+    public double getNormalX() {
+        return this.normalX;
+    }
+
+    /**
+     * @return the y of the surface's unit normal at the contact point.
+     */
+    public double getNormalY() {
+        return this.normalY;
+    }
+}
@@ -222,18 +222,14 @@ public class Line {
      * @return the closest intersection to this line's start with 'rect'.
      */
     public Point closestIntersectionToStartOfLine(Rectangle rect) {
-        java.util.List<Point> intersections = rect.intersectionPoints(this);
-        Point closest = null;
-        double minDistance = this.length();
-        for (Point inter : intersections) {
-
-            // For each intersection with the line, check if it's closer to the start
-            // of the line than the others.
-            if (this.start.distance(inter) <= minDistance) {
-                minDistance = this.start.distance(inter);
-                closest = inter;
-            }
+        double x1 = this.start.getX();
+        double y1 = this.start.getY();
+        double x2 = this.end.getX();
+        double y2 = this.end.getY();
+        double t = rect.intersectionParam(x1, y1, x2, y2);
+        if (t < 0) {
+            return null;
         }
-        return closest;
+        return new Point(x1 + t * (x2 - x1), y1 + t * (y2 - y1));
     }
 }
\ No newline at end of file
@@ -56,6 +56,298 @@ public class Rectangle {
         return intersections;
     }
 
+    /**
+     * Finds where the segment (x1, y1) -> (x2, y2) first touches this Rectangle's border.
+     * @param x1 the segment's start x.
+     * @param y1 the segment's start y.
+     * @param x2 the segment's end x.
+     * @param y2 the segment's end y.
+     * @return the segment's parameter t in [0, 1] of the closest border point to
+     * the start of the segment, or -1 if the segment doesn't touch the border.
+     */
+    public double intersectionParam(double x1, double y1, double x2, double y2) {
+        return intersectionParam(x1, y1, x2, y2, this.upperLeft.getX(), this.upperLeft.getY(),
+                                 this.width, this.height);
+    }
+
+    /**
+     * Finds when a circle moving from (x1, y1) to (x2, y2) first touches this Rectangle.
+     * @param x1 the circle's center's start x.
+     * @param y1 the circle's center's start y.
+     * @param x2 the circle's center's end x.
+     * @param y2 the circle's center's end y.
+     * @param radius the circle's radius.
+     * @param contact filled with the time, point and normal of the contact, if there is one.
+     * May be null, to find only the time.
+     * @return the time of impact, as the path's parameter t in [0, 1], or -1 if the circle
+     * doesn't touch this Rectangle.
+     */
+    public double sweepCircle(double x1, double y1, double x2, double y2, double radius, Contact contact) {
+        return sweepCircle(x1, y1, x2, y2, radius, this.upperLeft.getX(), this.upperLeft.getY(),
+                           this.width, this.height, contact);
+    }
+
+    /**
+     * Finds when a circle moving from (x1, y1) to (x2, y2) first touches the rectangle at
+     * (rectX, rectY) of size width x height. This is the same as finding where the center's
+     * path enters the rectangle grown by 'radius' with rounded corners: a slab test against
+     * the grown rectangle, and a circle test if it's entered at a corner. A circle that already
+     * touches the rectangle hits it at once, unless it's moving away from it.
+     * No objects are created.
+     * @param x1 the circle's center's start x.
+     * @param y1 the circle's center's start y.
+     * @param x2 the circle's center's end x.
+     * @param y2 the circle's center's end y.
+     * @param radius the circle's radius.
+     * @param rectX the rectangle's upper-left x.
+     * @param rectY the rectangle's upper-left y.
+     * @param width the rectangle's width.
+     * @param height the rectangle's height.
+     * @param contact filled with the time, point and normal of the contact, if there is one.
+     * May be null, to find only the time.
+     * @return the time of impact, as the path's parameter t in [0, 1], or -1 if the circle
+     * doesn't touch the rectangle.
+     */
+    public static double sweepCircle(double x1, double y1, double x2, double y2, double radius,
+                                     double rectX, double rectY, double width, double height, Contact contact) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double right = rectX + width;
+        double bottom = rectY + height;
+
+        // the rectangle's closest point to the start
+        double cx = Math.max(rectX, Math.min(x1, right));
+        double cy = Math.max(rectY, Math.min(y1, bottom));
+        double ox = x1 - cx;
+        double oy = y1 - cy;
+        double distance2 = ox * ox + oy * oy;
+        if (distance2 <= radius * radius) {
+            return touching(x1, y1, dx, dy, cx, cy, distance2, rectX, rectY, right, bottom, contact);
+        }
+
+        // the slab test against the grown rectangle
+        double tEnter = Double.NEGATIVE_INFINITY;
+        double tExit = Double.POSITIVE_INFINITY;
+        boolean enterX = false;
+        if (dx == 0) {
+            if (x1 < rectX - radius || x1 > right + radius) {
+                return -1;
+            }
+        } else {
+            double t1 = (rectX - radius - x1) / dx;
+            double t2 = (right + radius - x1) / dx;
+            tEnter = Math.min(t1, t2);
+            tExit = Math.max(t1, t2);
+            enterX = true;
+        }
+        if (dy == 0) {
+            if (y1 < rectY - radius || y1 > bottom + radius) {
+                return -1;
+            }
+        } else {
+            double t1 = (rectY - radius - y1) / dy;
+            double t2 = (bottom + radius - y1) / dy;
+            if (Math.min(t1, t2) > tEnter) {
+                tEnter = Math.min(t1, t2);
+                enterX = false;
+            }
+            tExit = Math.min(tExit, Math.max(t1, t2));
+        }
+        if (tEnter > tExit || tExit < 0 || tEnter > 1) {
+            return -1;
+        }
+
+        // the start may be in a corner of the grown rectangle, outside of the rounded one
+        double t = Math.max(0, tEnter);
+        double px = x1 + t * dx;
+        double py = y1 + t * dy;
+        boolean alongX = rectX <= px && px <= right;
+        boolean alongY = rectY <= py && py <= bottom;
+        if (tEnter >= 0 && enterX && alongY) {
+            double side = dx > 0 ? rectX : right;
+            if (contact != null) {
+                contact.set(t, side, py, dx > 0 ? -1 : 1, 0);
+            }
+            return t;
+        }
+        if (tEnter >= 0 && !enterX && alongX) {
+            double side = dy > 0 ? rectY : bottom;
+            if (contact != null) {
+                contact.set(t, px, side, 0, dy > 0 ? -1 : 1);
+            }
+            return t;
+        }
+
+        // entered at a corner - the path has to cross the circle around it
+        double cornerX = px < rectX ? rectX : right;
+        double cornerY = py < rectY ? rectY : bottom;
+        if (alongX) {
+            cornerX = Math.abs(px - rectX) < Math.abs(px - right) ? rectX : right;
+        }
+        if (alongY) {
+            cornerY = Math.abs(py - rectY) < Math.abs(py - bottom) ? rectY : bottom;
+        }
+        double fx = x1 - cornerX;
+        double fy = y1 - cornerY;
+        double a = dx * dx + dy * dy;
+        double b = fx * dx + fy * dy;
+        double c = fx * fx + fy * fy - radius * radius;
+        double discriminant = b * b - a * c;
+        if (a == 0 || discriminant < 0) {
+            return -1;
+        }
+        t = (-b - Math.sqrt(discriminant)) / a;
+        if (t < 0 || t > 1) {
+            return -1;
+        }
+        double nx = x1 + t * dx - cornerX;
+        double ny = y1 + t * dy - cornerY;
+        double length = Math.sqrt(nx * nx + ny * ny);
+        if (length > 0) {
+            nx /= length;
+            ny /= length;
+        }
+        if (contact != null) {
+            contact.set(t, cornerX, cornerY, nx, ny);
+        }
+        return t;
+    }
+
+    /**
+     * Handles a circle that touches the rectangle at the start of its path: it hits the
+     * rectangle at once, unless it's moving away from it.
+     * @param x1 the circle's center's x.
+     * @param y1 the circle's center's y.
+     * @param dx the path's x.
+     * @param dy the path's y.
+     * @param cx the rectangle's closest point to the center, x.
+     * @param cy the rectangle's closest point to the center, y.
+     * @param distance2 the squared distance of the center from the rectangle.
+     * @param left the rectangle's left x.
+     * @param top the rectangle's top y.
+     * @param right the rectangle's right x.
+     * @param bottom the rectangle's bottom y.
+     * @param contact filled with the contact, if there is one.
+     * @return 0, or -1 if the circle is moving away.
+     */
+    private static double touching(double x1, double y1, double dx, double dy, double cx, double cy,
+                                   double distance2, double left, double top, double right, double bottom,
+                                   Contact contact) {
+        double nx;
+        double ny;
+        double px = cx;
+        double py = cy;
+        if (distance2 > 0) {
+            double length = Math.sqrt(distance2);
+            nx = (x1 - cx) / length;
+            ny = (y1 - cy) / length;
+        } else {
+
+            // the center is inside - push it out of the closest side, preferring the one it's moving into
+            nx = -1;
+            ny = 0;
+            double depth = x1 - left;
+            for (int side = 1; side < 4; side++) {
+                double sx = side == 1 ? 1 : 0;
+                double sy = side == 2 ? -1 : side == 3 ? 1 : 0;
+                double d = side == 1 ? right - x1 : side == 2 ? y1 - top : bottom - y1;
+                if (d < depth || d == depth && sx * dx + sy * dy < nx * dx + ny * dy) {
+                    nx = sx;
+                    ny = sy;
+                    depth = d;
+                }
+            }
+            if (nx != 0) {
+                px = nx < 0 ? left : right;
+            } else {
+                py = ny < 0 ? top : bottom;
+            }
+        }
+        if (nx * dx + ny * dy >= 0) {
+            return -1;
+        }
+        if (contact != null) {
+            contact.set(0, px, py, nx, ny);
+        }
+        return 0;
+    }
+
+    /**
+     * Finds where the segment (x1, y1) -> (x2, y2) first touches the border of the
+     * rectangle at (rectX, rectY) of size width x height, using a slab test.
+     * No objects are created.
+     * @param x1 the segment's start x.
+     * @param y1 the segment's start y.
+     * @param x2 the segment's end x.
+     * @param y2 the segment's end y.
+     * @param rectX the rectangle's upper-left x.
+     * @param rectY the rectangle's upper-left y.
+     * @param width the rectangle's width.
+     * @param height the rectangle's height.
+     * @return the segment's parameter t in [0, 1] of the closest border point to
+     * the start of the segment, or -1 if the segment doesn't touch the border.
+     */
+    public static double intersectionParam(double x1, double y1, double x2, double y2,
+                                           double rectX, double rectY, double width, double height) {
+        double tEnter = Double.NEGATIVE_INFINITY;
+        double tExit = Double.POSITIVE_INFINITY;
+
+        // the X slab
+        double dx = x2 - x1;
+        if (dx == 0) {
+            if (x1 < rectX || x1 > rectX + width) {
+                return -1;
+            }
+        } else {
+            double t1 = (rectX - x1) / dx;
+            double t2 = (rectX + width - x1) / dx;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tExit = Math.min(tExit, Math.max(t1, t2));
+        }
+
+        // the Y slab
+        double dy = y2 - y1;
+        if (dy == 0) {
+            if (y1 < rectY || y1 > rectY + height) {
+                return -1;
+            }
+        } else {
+            double t1 = (rectY - y1) / dy;
+            double t2 = (rectY + height - y1) / dy;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tExit = Math.min(tExit, Math.max(t1, t2));
+        }
+
+        if (tEnter > tExit) {
+            return -1;
+        }
+
+        // entering the rectangle from the outside
+        if (tEnter >= 0) {
+            return tEnter <= 1 ? tEnter : -1;
+        }
+
+        // starting inside of it - the border is only crossed on the way out
+        if (tExit >= 0 && tExit <= 1) {
+            return tExit;
+        }
+        return -1;
+    }
+
+    /**
+     * Moves and resizes this Rectangle in place.
+     * @param x the new upper-left x.
+     * @param y the new upper-left y.
+     * @param newWidth the new width.
+     * @param newHeight the new height.
+     */
+    public void set(double x, double y, double newWidth, double newHeight) {
+        this.upperLeft.setX(x);
+        this.upperLeft.setY(y);
+        this.width = newWidth;
+        this.height = newHeight;
+    }
+
     /**
      * @return the width and height of the rectangle.
      */
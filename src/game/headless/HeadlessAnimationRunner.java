@@ -0,0 +1,79 @@
+package game.headless;
+
+import game.animation.Animation;
+import game.animation.AnimationRunner;
+import game.animation.SteppedAnimation;
+import game.metrics.FrameMetrics;
+
+/**
+ * @author Yuval Ezra.
+ * An AnimationRunner that needs no GUI. It runs frames with a fixed dt as fast
+ * as it can, against a NullDrawSurface and a ScriptedKeyboardSensor, until a
+ * budget of frames is used up.
+ */
+public class HeadlessAnimationRunner extends AnimationRunner {
+    private NullDrawSurface surface;
+    private ScriptedKeyboardSensor keyboard;
+    private long maxFrames;
+    private long frames;
+
+    /**
+     * A constructor for HeadlessAnimationRunner.
+     * @param framesPerSecond the simulated number of FPS, which sets dt.
+     * @param surface the surface the frames are drawn on.
+     * @param keyboard the scripted keyboard, moved forward every frame.
+     * @param maxFrames the number of frames to run, overall, before every
+     * run() returns immediately.
+     */
+    public HeadlessAnimationRunner(int framesPerSecond, NullDrawSurface surface,
+                                   ScriptedKeyboardSensor keyboard, long maxFrames) {
+        super(framesPerSecond);
+        this.surface = surface;
+        this.keyboard = keyboard;
+        this.maxFrames = maxFrames;
+        this.frames = 0;
+    }
+
+    @Override
+    public void run(Animation animation) {
+        double dt = 1.0 / this.getFramesPerSecond();
+        while (!animation.shouldStop() && this.hasFramesLeft()) {
+            this.keyboard.setFrame(this.frames);
+            if (animation instanceof SteppedAnimation) {
+                this.runStep((SteppedAnimation) animation, dt);
+            } else {
+                animation.doOneFrame(this.surface, dt);
+            }
+            this.frames++;
+        }
+    }
+
+    /**
+     * Draws and then updates a SteppedAnimation, as its doOneFrame would, while
+     * timing both phases.
+     * @param animation the SteppedAnimation.
+     * @param dt the time interval of the step.
+     */
+    private void runStep(SteppedAnimation animation, double dt) {
+        long drawStart = System.nanoTime();
+        animation.render(this.surface, 0);
+        long updateStart = System.nanoTime();
+        animation.update(dt);
+        this.getMetrics().record(FrameMetrics.Phase.DRAW, updateStart - drawStart);
+        this.getMetrics().record(FrameMetrics.Phase.UPDATE, System.nanoTime() - updateStart);
+    }
+
+    /**
+     * @return true if there are frames left in this runner's budget, false otherwise.
+     */
+    public boolean hasFramesLeft() {
+        return this.frames < this.maxFrames;
+    }
+
+    /**
+     * @return the number of frames run so far.
+     */
+    public long getFrames() {
+        return this.frames;
+    }
+}
@@ -0,0 +1,78 @@
+package game.headless;
+
+import java.io.File;
+import java.io.IOException;
+
+import biuoop.KeyboardSensor;
+import game.levels.GameFlow;
+import game.levels.GameLevel;
+import game.misc.Counter;
+import game.misc.IntCounter;
+
+/**
+ * @author Yuval Ezra.
+ * Runs the game without a display, for soak tests, profiling and regression checks.
+ * The player holds the fire button and sweeps from side to side; a lost game is
+ * started over until the frame budget runs out.
+ */
+public class HeadlessSimulation {
+
+    /**
+     * Runs the simulation.
+     * @param args the number of frames to simulate (100000 by default), and the
+     * CSV file to write the frame metrics to (frame_metrics.csv by default).
+     * @throws IOException if the metrics failed to be written.
+     */
+    public static void main(String[] args) throws IOException {
+        long frames = args.length > 0 ? Long.parseLong(args[0]) : 100000;
+        File metricsFile = new File(args.length > 1 ? args[1] : "frame_metrics.csv");
+
+        // screen borders
+        int wid = 800, len = 600;
+        int framesPerSecond = 60;
+        int lives = 7;
+
+        // the scripted player
+        ScriptedKeyboardSensor keyboard = new ScriptedKeyboardSensor();
+        keyboard.hold(KeyboardSensor.SPACE_KEY, 0);
+        int sweep = 2 * framesPerSecond;
+        for (long f = 0; f < frames; f += 2 * sweep) {
+            keyboard.press(KeyboardSensor.LEFT_KEY, f, f + sweep);
+            keyboard.press(KeyboardSensor.RIGHT_KEY, f + sweep, f + 2 * sweep);
+        }
+
+        NullDrawSurface surface = new NullDrawSurface(wid, len);
+        HeadlessAnimationRunner runner = new HeadlessAnimationRunner(framesPerSecond, surface, keyboard, frames);
+
+        Counter score = new IntCounter(0);
+        int games = 0, battles = 0;
+        long start = System.nanoTime();
+        while (runner.hasFramesLeft()) {
+            Counter livesLeft = new IntCounter(lives);
+            int battleNo = 1;
+            games++;
+            while (runner.hasFramesLeft() && livesLeft.getValue() > 0) {
+                GameLevel level = new GameLevel(GameFlow.spaceInvadersLevel(battleNo, wid, len), keyboard,
+                                                runner, livesLeft, score, battleNo);
+                level.initialize();
+                battles++;
+                while (runner.hasFramesLeft() && livesLeft.getValue() > 0
+                       && level.getRemainingBlocks().getValue() > 0) {
+                    level.playOneTurn();
+                }
+                battleNo++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("frames:     " + runner.getFrames());
+        System.out.println("games:      " + games);
+        System.out.println("battles:    " + battles);
+        System.out.println("score:      " + score.getValue());
+        System.out.println("draw calls: " + surface.getDrawCalls());
+        System.out.printf("time:       %.2f s (%.0f frames per second)%n", seconds, runner.getFrames() / seconds);
+
+        runner.getMetrics().writeCsv(metricsFile);
+        System.out.println("metrics:    " + metricsFile);
+    }
+}
@@ -0,0 +1,104 @@
+package game.headless;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.Polygon;
+
+import biuoop.DrawSurface;
+
+/**
+ * @author Yuval Ezra.
+ * A DrawSurface that draws nothing, and only counts the draw calls made on it.
+ */
+public class NullDrawSurface implements DrawSurface {
+    private int width;
+    private int height;
+    private long drawCalls;
+
+    /**
+     * A constructor for NullDrawSurface.
+     * @param width the surface's width.
+     * @param height the surface's height.
+     */
+    public NullDrawSurface(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.drawCalls = 0;
+    }
+
+    /**
+     * @return the number of draw calls made on this surface so far.
+     */
+    public long getDrawCalls() {
+        return this.drawCalls;
+    }
+
+    @Override
+    public void setColor(Color color) {
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        this.drawCalls++;
+    }
+
+    @Override
+    public void drawOval(int x, int y, int width, int height) {
+        this.drawCalls++;
+    }
+
+    @Override
+    public void fillOval(int x, int y, int width, int height) {
+        this.drawCalls++;
+    }
+
+    @Override
+    public void drawRectangle(int x, int y, int width, int height) {
+        this.drawCalls++;
+    }
+
+    @Override
+    public void fillRectangle(int x, int y, int width, int height) {
+        this.drawCalls++;
+    }
+
+    @Override
+    public void drawCircle(int x, int y, int r) {
+        this.drawCalls++;
+    }
+
+    @Override
+    public void fillCircle(int x, int y, int r) {
+        this.drawCalls++;
+    }
+
+    @Override
+    public void drawPolygon(Polygon p) {
+        this.drawCalls++;
+    }
+
+    @Override
+    public void fillPolygon(Polygon p) {
+        this.drawCalls++;
+    }
+
+    @Override
+    public void drawText(int x, int y, String s, int fontSize) {
+        this.drawCalls++;
+    }
+
+    @Override
+    public void drawImage(int x, int y, Image image) {
+        this.drawCalls++;
+    }
+
+    @Override
+    public int getWidth() {
+        return this.width;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.height;
+    }
+}
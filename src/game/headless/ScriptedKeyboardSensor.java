@@ -0,0 +1,70 @@
+package game.headless;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import biuoop.KeyboardSensor;
+
+/**
+ * @author Yuval Ezra.
+ * A KeyboardSensor whose keys are pressed by a script of frame ranges
+ * instead of by a player.
+ */
+public class ScriptedKeyboardSensor implements KeyboardSensor {
+    private Map<String, List<long[]>> presses;
+    private long frame;
+
+    /**
+     * A constructor for ScriptedKeyboardSensor.
+     */
+    public ScriptedKeyboardSensor() {
+        this.presses = new HashMap<>();
+        this.frame = 0;
+    }
+
+    /**
+     * Scripts 'key' to be held from frame 'from' up to, and not including, frame 'to'.
+     * @param key the key to press.
+     * @param from the first frame the key is pressed in.
+     * @param to the first frame the key is released in.
+     */
+    public void press(String key, long from, long to) {
+        if (!this.presses.containsKey(key)) {
+            this.presses.put(key, new ArrayList<long[]>());
+        }
+        this.presses.get(key).add(new long[] {from, to});
+    }
+
+    /**
+     * Scripts 'key' to be held from frame 'from' on.
+     * @param key the key to press.
+     * @param from the first frame the key is pressed in.
+     */
+    public void hold(String key, long from) {
+        this.press(key, from, Long.MAX_VALUE);
+    }
+
+    /**
+     * Sets the frame the script is currently at.
+     * @param f the current frame.
+     */
+    public void setFrame(long f) {
+        this.frame = f;
+    }
+
+    @Override
+    public boolean isPressed(String key) {
+        List<long[]> ranges = this.presses.get(key);
+        if (ranges == null) {
+            return false;
+        }
+        for (long[] range : ranges) {
+            if (range[0] <= this.frame && this.frame < range[1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
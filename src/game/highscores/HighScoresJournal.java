@@ -0,0 +1,317 @@
+package game.highscores;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Yuval Ezra.
+ * A HighScoresTable kept as a snapshot File and a journal of the scores submitted since.
+ * Submitting a score appends one small record to the journal instead of rewriting the table.
+ * When the journal passes a size threshold it is folded into a new snapshot on a background
+ * thread. Every record has a sequence number, and the snapshot remembers the last one it holds,
+ * so a record is never applied twice, even if the game stopped in the middle of a compaction.
+ */
+public class HighScoresJournal implements Closeable {
+
+    // the journal's header: "HSJL"
+    private static final int MAGIC = 0x48534A4C;
+
+    // the journal size, in bytes, past which it is folded into the snapshot
+    private static final long DEFAULT_THRESHOLD = 64 * 1024;
+
+    // the size of the buffer records are written through
+    private static final int BUFFER_SIZE = 4096;
+
+    // a record's size without its name: sequence, name length and score
+    private static final int RECORD_HEADER = Long.BYTES + 2 * Integer.BYTES;
+
+    private File snapshot;
+    private Path journal;
+    private Path rotated;
+    private HighScoresTable table;
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private long threshold;
+
+    // the sequence number of the next record
+    private long nextSequence;
+
+    private ExecutorService compactor;
+    private Future<?> compaction;
+
+    /**
+     * A constructor for HighScoresJournal. Use open() to create one.
+     * @param snapshot the snapshot File.
+     * @param table the table, after the journal was replayed into it.
+     * @param channel the journal, positioned at its end.
+     */
+    private HighScoresJournal(File snapshot, HighScoresTable table, FileChannel channel) {
+        this.snapshot = snapshot;
+        this.journal = journalPath(snapshot);
+        this.rotated = this.journal.resolveSibling(this.journal.getFileName() + ".old");
+        this.table = table;
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.threshold = DEFAULT_THRESHOLD;
+        this.nextSequence = table.getSequence() + 1;
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "high-scores compaction");
+            t.setDaemon(true);
+            return t;
+        });
+        this.compaction = null;
+    }
+
+    /**
+     * Opens the high-scores kept in 'snapshot' and its journal, replaying the journal into the table.
+     * A snapshot in an older format is converted as HighScoresTable.loadFromFile does. A record cut
+     * short at the journal's end, as left by a crash, is dropped.
+     * @param snapshot the snapshot File. The journal is kept next to it.
+     * @return the opened HighScoresJournal.
+     * @throws IOException if the journal couldn't be opened or isn't a journal.
+     */
+    public static HighScoresJournal open(File snapshot) throws IOException {
+        HighScoresTable table = HighScoresTable.loadFromFile(snapshot);
+        Path journal = journalPath(snapshot);
+        Path rotated = journal.resolveSibling(journal.getFileName() + ".old");
+
+        // a journal left by a compaction that didn't finish
+        boolean unfinished = Files.exists(rotated);
+        if (unfinished) {
+            replay(rotated, table);
+        }
+
+        FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        try {
+            long end = replay(channel, table);
+            if (end == 0) {
+                ByteBuffer header = ByteBuffer.allocate(Integer.BYTES).putInt(MAGIC);
+                header.flip();
+                writeFully(channel, header);
+                end = Integer.BYTES;
+            }
+            channel.truncate(end);
+            channel.position(end);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        if (unfinished) {
+            HighScoresTable.store(table.write(), snapshot);
+            Files.delete(rotated);
+        }
+        return new HighScoresJournal(snapshot, table, channel);
+    }
+
+    /**
+     * @return the table, with every submitted score.
+     */
+    public HighScoresTable getTable() {
+        return this.table;
+    }
+
+    /**
+     * Sets the journal size past which it is folded into the snapshot.
+     * @param bytes the new threshold, in bytes.
+     */
+    public synchronized void setThreshold(long bytes) {
+        this.threshold = bytes;
+    }
+
+    /**
+     * Adds 'score' to the table, and appends it to the journal.
+     * @param score the score to submit.
+     * @throws IOException if the score couldn't be written to the journal. It is still in the table.
+     */
+    public synchronized void submit(ScoreInfo score) throws IOException {
+        long sequence = this.nextSequence++;
+        this.table.add(score);
+        this.table.setSequence(sequence);
+
+        byte[] name = score.getName().getBytes(StandardCharsets.UTF_8);
+        this.buffer.clear();
+        if (RECORD_HEADER + name.length > this.buffer.capacity()) {
+            this.buffer = ByteBuffer.allocateDirect(RECORD_HEADER + name.length);
+        }
+        this.buffer.putLong(sequence);
+        this.buffer.putInt(name.length);
+        this.buffer.put(name);
+        this.buffer.putInt(score.getScore());
+        this.buffer.flip();
+        writeFully(this.channel, this.buffer);
+        this.channel.force(false);
+
+        // the score is already in the journal, so a failed compaction is only retried later
+        if (this.channel.size() > this.threshold) {
+            try {
+                this.compact();
+            } catch (IOException e) {
+                System.out.println("Failed compacting the high-scores journal.");
+            }
+        }
+    }
+
+    /**
+     * Starts folding the journal into a new snapshot on the background thread, unless a
+     * compaction is already running. The journal is renamed and a new one is started, so
+     * scores can be submitted while the snapshot is written. If an earlier compaction failed,
+     * its renamed journal is still there, and only the snapshot is written again.
+     * @throws IOException if a new journal couldn't be started. The current journal is kept.
+     */
+    public synchronized void compact() throws IOException {
+        if (this.compaction != null && !this.compaction.isDone()) {
+            return;
+        }
+        if (!Files.exists(this.rotated)) {
+            this.rotate();
+        }
+
+        // the table is turned into bytes here, so the background thread never touches it.
+        // It holds every record of both journals.
+        ByteBuffer data = this.table.write();
+        this.compaction = this.compactor.submit(() -> {
+            try {
+                HighScoresTable.store(data, this.snapshot);
+                Files.delete(this.rotated);
+            } catch (IOException e) {
+                // the old journal is kept, and the snapshot is written again by the next compaction
+                System.out.println("Failed compacting the high-scores journal.");
+            }
+        });
+    }
+
+    /**
+     * Renames the journal, and starts a new one in its place. If either step fails, the
+     * journal is left as it was, and still written to.
+     * @throws IOException if the journal couldn't be renamed or a new one couldn't be started.
+     */
+    private void rotate() throws IOException {
+        // the journal is renamed while it's still open, so a failed rename leaves it in use
+        HighScoresTable.move(this.journal, this.rotated);
+        FileChannel next;
+        try {
+            next = FileChannel.open(this.journal, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            try {
+                ByteBuffer header = ByteBuffer.allocate(Integer.BYTES).putInt(MAGIC);
+                header.flip();
+                writeFully(next, header);
+            } catch (IOException e) {
+                next.close();
+                Files.deleteIfExists(this.journal);
+                throw e;
+            }
+        } catch (IOException e) {
+            // if it can't be renamed back either, it's still written to under its new name,
+            // and replayed from there when the table is opened
+            try {
+                HighScoresTable.move(this.rotated, this.journal);
+            } catch (IOException restore) {
+                e.addSuppressed(restore);
+            }
+            throw e;
+        }
+        this.channel.close();
+        this.channel = next;
+    }
+
+    /**
+     * Waits for a running compaction, and closes the journal.
+     * @throws IOException if the journal couldn't be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        this.compactor.shutdown();
+        try {
+            this.compactor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.channel.close();
+    }
+
+    /**
+     * @param snapshot a snapshot File.
+     * @return the path of the snapshot's journal.
+     */
+    private static Path journalPath(File snapshot) {
+        Path target = snapshot.toPath().toAbsolutePath();
+        return target.resolveSibling(target.getFileName() + ".journal");
+    }
+
+    /**
+     * Replays the journal at 'path' into 'table'.
+     * @param path the journal.
+     * @param table the table to replay the journal into.
+     * @throws IOException if the journal couldn't be read or isn't a journal.
+     */
+    private static void replay(Path path, HighScoresTable table) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            replay(channel, table);
+        }
+    }
+
+    /**
+     * Replays a journal into 'table', skipping the records the table already holds.
+     * @param channel the journal.
+     * @param table the table to replay the journal into.
+     * @return the length of the journal's complete records, including its header, or 0 if it's empty.
+     * @throws IOException if the journal couldn't be read or isn't a journal.
+     */
+    private static long replay(FileChannel channel, HighScoresTable table) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate((int) channel.size());
+        while (data.hasRemaining() && channel.read(data, data.position()) != -1) {
+            continue;
+        }
+        data.flip();
+        if (!data.hasRemaining()) {
+            return 0;
+        }
+        if (data.remaining() < Integer.BYTES || data.getInt() != MAGIC) {
+            throw new IOException("Not a high-scores journal");
+        }
+        long end = data.position();
+
+        // a record cut short ends the replay. It is dropped.
+        while (data.remaining() >= RECORD_HEADER) {
+            long sequence = data.getLong();
+            int length = data.getInt();
+            if (length < 0 || length > data.remaining() - Integer.BYTES) {
+                break;
+            }
+            byte[] name = new byte[length];
+            data.get(name);
+            int score = data.getInt();
+            end = data.position();
+            if (sequence > table.getSequence()) {
+                table.add(new ScoreInfo(new String(name, StandardCharsets.UTF_8), score));
+                table.setSequence(sequence);
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Writes all of 'data' to 'channel'.
+     * @param channel the channel to write to.
+     * @param data the bytes to write.
+     * @throws IOException if writing failed.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+}
@@ -1,52 +1,126 @@
 package game.highscores;
 
-import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamConstants;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Yuval Ezra
  * A highScores-table.
+ * The table keeps up to 'capacity' scores, sorted from the highest to the lowest, in an
+ * array, so ranks are found by a binary search. Only the first 'size' scores are shown as
+ * the high-scores. Every player's best score is kept by name.
+ * The table is saved in a small binary format. Tables saved by older versions with Java
+ * serialization are still read, and are converted the first time they're loaded.
  */
 public class HighScoresTable implements Serializable {
 
    private static final long serialVersionUID = -7962091275772613394L;
+
+   // the fields older versions serialized, so their files can still be read
+   private static final ObjectStreamField[] serialPersistentFields = {
+       new ObjectStreamField("size", int.class),
+       new ObjectStreamField("scores", List.class)
+   };
+
+   // the binary format's header: "HSTB" and the format's version
+   private static final int MAGIC = 0x48535442;
+   private static final int FORMAT_VERSION = 3;
+
+   // the number of scores kept by default
+   private static final int DEFAULT_CAPACITY = 10000;
+
+   // the number of scores shown
    private int size;
-   private List<ScoreInfo> scores;
+
+   // the scores, from the highest to the lowest. Only the first 'count' are used.
+   private transient ScoreInfo[] scores;
+   private transient int count;
+   private transient int capacity;
+
+   // every player's best score
+   private transient Map<String, ScoreInfo> bests;
+
+   // the last HighScoresJournal record folded into this Table
+   private transient long sequence;
 
    /**
     * A constructor for HighScoresTable.
     * @param size the size of the high-scores table.
     */
    public HighScoresTable(int size) {
+       this(size, Math.max(size, DEFAULT_CAPACITY));
+   }
+
+   /**
+    * A constructor for HighScoresTable.
+    * @param size the size of the high-scores table.
+    * @param capacity the number of scores kept, including the ones not shown.
+    */
+   public HighScoresTable(int size, int capacity) {
        this.size = size;
-       this.scores = new LinkedList<ScoreInfo>();
+       this.capacity = Math.max(1, capacity);
+       this.scores = new ScoreInfo[Math.min(this.capacity, 16)];
+       this.count = 0;
+       this.bests = new HashMap<String, ScoreInfo>();
    }
 
    /**
     * Add 'score' to this Table.
+    * If the Table is full, its lowest score is dropped to make room.
     * @param score the score to be added to this Table.
     */
    public void add(ScoreInfo score) {
        int rank = this.getRank(score.getScore());
 
-       if (rank > this.size()) {
+       if (rank > this.capacity) {
            return;
        }
 
        // if full but need to add
-       if (this.scores.size() == this.size()) {
-           this.scores.remove(this.scores.size() - 1);
+       if (this.count == this.capacity) {
+           this.count--;
+           ScoreInfo dropped = this.scores[this.count];
+           this.scores[this.count] = null;
+
+           // a player's best is their first score in the table, so if it's the last one it's their only one
+           if (this.bests.get(dropped.getName()) == dropped) {
+               this.bests.remove(dropped.getName());
+           }
        }
+       if (this.count == this.scores.length) {
+           this.scores = Arrays.copyOf(this.scores, (int) Math.min(this.capacity, 2L * this.scores.length));
+       }
+
+       System.arraycopy(this.scores, rank - 1, this.scores, rank, this.count - (rank - 1));
+       this.scores[rank - 1] = score;
+       this.count++;
 
-       this.scores.add(rank - 1, score);
+       ScoreInfo best = this.bests.get(score.getName());
+       if (best == null || best.getScore() < score.getScore()) {
+           this.bests.put(score.getName(), score);
+       }
    }
 
    /**
@@ -64,11 +138,35 @@ public class HighScoresTable implements Serializable {
        this.size = s;
    }
 
+   /**
+    * @return the number of scores kept, including the ones not shown.
+    */
+   public int count() {
+       return this.count;
+   }
+
    /**
     * @return the current high-scores.
     */
    public List<ScoreInfo> getHighScores() {
-       return this.scores;
+       return this.topScores(this.size);
+   }
+
+   /**
+    * @param k the number of scores to return.
+    * @return the 'k' highest scores, from the highest to the lowest.
+    */
+   public List<ScoreInfo> topScores(int k) {
+       int n = Math.max(0, Math.min(k, this.count));
+       return new ArrayList<ScoreInfo>(Arrays.asList(this.scores).subList(0, n));
+   }
+
+   /**
+    * @param name a player's name.
+    * @return the player's best score in this Table, or null if they have none.
+    */
+   public ScoreInfo getBest(String name) {
+       return this.bests.get(name);
    }
 
    /**
@@ -77,92 +175,262 @@ public class HighScoresTable implements Serializable {
     * Rank 1 means the score will be the highest on the list, and rank
     * 'size' means it would be the lowest. Rank > 'size' means the score
     * is too low and will not be added to the list.
+    * A score equal to scores already in the Table is ranked after them.
     * @param score the score to be added to this HighScoresTable.
     * @return this scores 'rank' in the Table.
     */
    public int getRank(int score) {
-       for (int i = 0; i < this.scores.size(); i++) {
-           if (this.scores.get(i).getScore() < score) {
-               return i + 1;
+       // the first score lower than 'score'
+       int low = 0;
+       int high = this.count;
+       while (low < high) {
+           int mid = (low + high) >>> 1;
+           if (this.scores[mid].getScore() < score) {
+               high = mid;
+           } else {
+               low = mid + 1;
            }
        }
-
-       // the end of the list
-       return this.scores.size() + 1;
+       return low + 1;
    }
 
    /**
     * Clears this Table.
     */
    public void clear() {
-       this.scores.clear();
+       Arrays.fill(this.scores, 0, this.count, null);
+       this.count = 0;
+       this.bests.clear();
+   }
+
+   /**
+    * @return the sequence number of the last HighScoresJournal record folded into this Table.
+    */
+   long getSequence() {
+       return this.sequence;
+   }
+
+   /**
+    * @param s the sequence number of the last HighScoresJournal record folded into this Table.
+    */
+   void setSequence(long s) {
+       this.sequence = s;
    }
 
    /**
     * Loads Table data from File.
+    * The File is read with a single read. A File in the old serialized format is
+    * converted to the binary format the first time it's loaded.
     * @param filename the File to load this Table's data from.
     * @throws IOException if there was a problem reading fomr the file.
     */
    public void load(File filename) throws IOException {
-
-       FileInputStream in = null;
-       try {
-           in = new FileInputStream(filename);
-           ObjectInputStream reader = new ObjectInputStream(in);
-           HighScoresTable t = null;
-           try {
-               t = (HighScoresTable) reader.readObject();
-           } catch (ClassNotFoundException e) {
-               // TODO Auto-generated catch block
-               e.printStackTrace();
-           } finally {
-               reader.close();
+       ByteBuffer data;
+       try (FileChannel channel = FileChannel.open(filename.toPath(), StandardOpenOption.READ)) {
+           data = ByteBuffer.allocate((int) channel.size());
+           while (data.hasRemaining() && channel.read(data) != -1) {
+               continue;
            }
+           data.flip();
+       } catch (NoSuchFileException e) {
+           System.out.println("Failed to load table.");
+           return;
+       }
 
+       // file is clear
+       if (!data.hasRemaining()) {
            this.clear();
-           if (t != null) {
-               this.scores.addAll(t.getHighScores());
-           }
-           if (this.size < this.scores.size()) {
-               this.size = this.scores.size();
-           }
-       } catch (EOFException e) {
-
-           // file is clear
            this.save(filename);
-       } catch (IOException e) {
-           System.out.println("Failed to load table.");
-       } finally {
-           if (in != null) {
-               in.close();
-           }
+           return;
+       }
+       if (data.remaining() >= 2 && data.getShort(0) == ObjectStreamConstants.STREAM_MAGIC) {
+           this.migrate(filename);
+           return;
+       }
+       try {
+           this.read(data);
+       } catch (BufferUnderflowException e) {
+           throw new IOException("Truncated high-scores file " + filename, e);
        }
    }
 
    /**
     * Saves Table data to the specified File.
+    * The data is written to a temporary File first, which then replaces 'filename',
+    * so a failed save never leaves a half-written table behind.
     * @param filename the file to save this Table in.
     * @throws IOException if the File failed to open.
     */
    public void save(File filename) throws IOException {
-       FileOutputStream out = null;
        try {
-           out = new FileOutputStream(filename);
-           ObjectOutputStream writer = new ObjectOutputStream(out);
-           writer.writeObject(this);
-           writer.close();
+           store(this.write(), filename);
        } catch (IOException e) {
            System.out.println("Failed saving in the file.");
-       } finally {
-           if (out != null) {
-               out.close();
+       }
+   }
+
+   /**
+    * Writes a Table, in the binary format, to a temporary File which then replaces 'filename'.
+    * @param data the Table in the binary format, as returned by write().
+    * @param filename the file to save the Table in.
+    * @throws IOException if writing failed. 'filename' is left as it was.
+    */
+   static void store(ByteBuffer data, File filename) throws IOException {
+       Path target = filename.toPath().toAbsolutePath();
+       Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+       try {
+           try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                       StandardOpenOption.TRUNCATE_EXISTING)) {
+               while (data.hasRemaining()) {
+                   channel.write(data);
+               }
+               channel.force(true);
+           }
+           move(temp, target);
+       } catch (IOException e) {
+           Files.deleteIfExists(temp);
+           throw e;
+       }
+   }
+
+   /**
+    * Renames a file, replacing 'target' if it exists. The rename is atomic where the
+    * file system supports it.
+    * @param source the file to rename.
+    * @param target the file's new path.
+    * @throws IOException if the file couldn't be renamed.
+    */
+   static void move(Path source, Path target) throws IOException {
+       try {
+           Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+       } catch (AtomicMoveNotSupportedException e) {
+           Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+       }
+   }
+
+   /**
+    * Reads this Table's scores from the binary format: a header of MAGIC and FORMAT_VERSION,
+    * the Table's size, the last journal sequence folded into it, the number of scores, and then
+    * every score as its name's UTF-8 length, the name's UTF-8 bytes and the score itself.
+    * Files of the first version have no size, and files of the first two have no sequence.
+    * @param data the file's content.
+    * @throws IOException if the content is not in the binary format.
+    */
+   private void read(ByteBuffer data) throws IOException {
+       if (data.getInt() != MAGIC) {
+           throw new IOException("Not a high-scores file");
+       }
+       int version = data.getInt();
+       if (version < 1 || version > FORMAT_VERSION) {
+           throw new IOException("Unsupported high-scores format " + version);
+       }
+       int shown = version == 1 ? 0 : data.getInt();
+       long last = version < 3 ? 0 : data.getLong();
+       int n = data.getInt();
+       if (n < 0) {
+           throw new IOException("Corrupt high-scores file");
+       }
+       this.clear();
+       for (int i = 0; i < n; i++) {
+           int length = data.getInt();
+           if (length < 0 || length > data.remaining()) {
+               throw new IOException("Corrupt high-scores file");
+           }
+           byte[] name = new byte[length];
+           data.get(name);
+           this.add(new ScoreInfo(new String(name, StandardCharsets.UTF_8), data.getInt()));
+       }
+       this.size = Math.max(this.size, version == 1 ? this.count : shown);
+       this.sequence = last;
+   }
+
+   /**
+    * @return this Table's scores in the binary format, ready to be written.
+    */
+   ByteBuffer write() {
+       byte[][] names = new byte[this.count][];
+       int length = 4 * Integer.BYTES + Long.BYTES;
+       for (int i = 0; i < this.count; i++) {
+           names[i] = this.scores[i].getName().getBytes(StandardCharsets.UTF_8);
+           length += 2 * Integer.BYTES + names[i].length;
+       }
+       ByteBuffer data = ByteBuffer.allocate(length);
+       data.putInt(MAGIC);
+       data.putInt(FORMAT_VERSION);
+       data.putInt(this.size);
+       data.putLong(this.sequence);
+       data.putInt(this.count);
+       for (int i = 0; i < this.count; i++) {
+           data.putInt(names[i].length);
+           data.put(names[i]);
+           data.putInt(this.scores[i].getScore());
+       }
+       data.flip();
+       return data;
+   }
+
+   /**
+    * Loads a Table saved in the old serialized format, and saves it again in the binary format.
+    * @param filename the File to convert.
+    * @throws IOException if there was a problem reading the file.
+    */
+   private void migrate(File filename) throws IOException {
+       HighScoresTable t = null;
+       try (ObjectInputStream reader = new ObjectInputStream(new FileInputStream(filename))) {
+           t = (HighScoresTable) reader.readObject();
+       } catch (ClassNotFoundException | ClassCastException e) {
+           throw new IOException("Not a high-scores file " + filename, e);
+       }
+       this.clear();
+       if (t != null) {
+           for (ScoreInfo score : t.topScores(t.count())) {
+               this.add(score);
+           }
+       }
+       if (this.size < this.count) {
+           this.size = this.count;
+       }
+       this.save(filename);
+   }
+
+   /**
+    * Writes this Table in the serialized format of older versions: its size and a list of its scores.
+    * @param out the stream to write to.
+    * @throws IOException if writing failed.
+    */
+   private void writeObject(ObjectOutputStream out) throws IOException {
+       ObjectOutputStream.PutField fields = out.putFields();
+       fields.put("size", this.size);
+       fields.put("scores", new LinkedList<ScoreInfo>(this.topScores(this.count)));
+       out.writeFields();
+   }
+
+   /**
+    * Reads a Table in the serialized format of older versions.
+    * @param in the stream to read from.
+    * @throws IOException if reading failed.
+    * @throws ClassNotFoundException if the stream has an unknown class.
+    */
+   private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+       ObjectInputStream.GetField fields = in.readFields();
+       int s = fields.get("size", 0);
+       List<?> list = (List<?>) fields.get("scores", null);
+       int n = list == null ? 0 : list.size();
+       this.size = s;
+       this.capacity = Math.max(n, Math.max(s, DEFAULT_CAPACITY));
+       this.scores = new ScoreInfo[Math.max(n, 16)];
+       this.count = 0;
+       this.bests = new HashMap<String, ScoreInfo>();
+       if (list != null) {
+           for (Object score : list) {
+               this.add((ScoreInfo) score);
            }
        }
    }
 
    @Override
     public String toString() {
-        return this.scores.toString();
+        return this.topScores(this.count).toString();
     }
 
    /**
@@ -35,6 +35,15 @@ public class BallRemover implements HitListener {
     * @param hitter the Ball that hit 'beingHit'.
     */
    public void hitEvent(Block beingHit, Bullet hitter) {
+      this.remove(hitter);
+   }
+
+   /**
+    * Removes Ball 'hitter' from the game.
+    * Used by Collidables that aren't Blocks, and so don't notify HitListeners.
+    * @param hitter the Ball to remove.
+    */
+   public void remove(Bullet hitter) {
       hitter.removeFromGame(this.game);
       this.remainingBalls.decrease(1);
    }
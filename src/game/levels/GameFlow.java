@@ -4,6 +4,7 @@ import java.awt.Color;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 
 import biuoop.DialogManager;
 import biuoop.GUI;
@@ -14,13 +15,17 @@ import game.animation.EndScreen;
 import game.animation.MenuAnimation;
 import game.decorators.KeyPressStoppableAnimation;
 import game.highscores.HighScoresAnimation;
+import game.highscores.HighScoresJournal;
 import game.highscores.HighScoresTable;
 import game.highscores.ScoreInfo;
 import game.menu.Menu;
 import game.menu.ShowHiScoresTask;
 import game.menu.Task;
+import game.levels.definitions.DefinedLevel;
+import game.levels.definitions.Definitions;
 import game.misc.Counter;
 import game.misc.Fill;
+import game.misc.IntCounter;
 import game.misc.Tuple;
 import game.objects.Block;
 import game.objects.bullet.Velocity;
@@ -30,12 +35,25 @@ import game.objects.bullet.Velocity;
  */
 public class GameFlow {
 
+    // the definitions of the Space Invaders level
+    private static final String SPACE_INVADERS_DEFINITIONS = "definitions/space_invaders_definitions.txt";
+
+    // the high-scores snapshot. Its journal is kept next to it.
+    private static final File HIGH_SCORES_FILE = new File("highscores.txt");
+
     private AnimationRunner ar;
     private KeyboardSensor keyboard;
     private Counter lives;
     private Counter score;
     private GUI gui;
 
+    // the high-scores, loaded once. The journal is null if it couldn't be opened.
+    private HighScoresTable highScores;
+    private HighScoresJournal journal;
+
+    // the name the last run was recorded under, or null if no run was recorded yet
+    private String playerName;
+
     /**
      * A constructor for GameFlow.
      * @param ar the AnimationRunner.
@@ -46,9 +64,17 @@ public class GameFlow {
     public GameFlow(AnimationRunner ar, KeyboardSensor keyboard, int lives, GUI gui) {
         this.ar = ar;
         this.keyboard = keyboard;
-        this.lives = new Counter(lives);
-        this.score = new Counter(0);
+        this.lives = new IntCounter(lives);
+        this.score = new IntCounter(0);
         this.gui = gui;
+        try {
+            this.journal = HighScoresJournal.open(HIGH_SCORES_FILE);
+            this.highScores = this.journal.getTable();
+        } catch (IOException e) {
+            e.printStackTrace();
+            this.journal = null;
+            this.highScores = HighScoresTable.loadFromFile(HIGH_SCORES_FILE);
+        }
     }
 
     /**
@@ -57,7 +83,7 @@ public class GameFlow {
     public void runGame() {
 
         int battleNo = 1;
-        Counter livesTemp = new Counter(this.lives.getValue());
+        Counter livesTemp = new IntCounter(this.lives.getValue());
         GameLevel level = new GameLevel(this.spaceInvadersLevel(battleNo), this.keyboard,
                                         this.ar, livesTemp, this.score, battleNo);
 
@@ -78,14 +104,21 @@ public class GameFlow {
             level.initialize();
         }
 
-        File f = new File("highscores.txt");
-        HighScoresTable t = HighScoresTable.loadFromFile(f);
-        if (t.getRank(score.getValue()) <= t.size()) {
-            DialogManager dialog = this.gui.getDialogManager();
-            String name = dialog.showQuestionDialog("Name", "What is your name?", "");
-            t.add(new ScoreInfo(name, score.getValue()));
+        // every run is recorded, so the table keeps each player's history. The name is asked
+        // for after every run, starting from the last one, and a run with no name isn't recorded.
+        HighScoresTable t = this.highScores;
+        DialogManager dialog = this.gui.getDialogManager();
+        String last = this.playerName == null ? "" : this.playerName;
+        String name = dialog.showQuestionDialog("Name", "What is your name?", last);
+        if (name != null && !name.trim().isEmpty()) {
+            this.playerName = name.trim();
             try {
-                t.save(f);
+                if (this.journal != null) {
+                    this.journal.submit(new ScoreInfo(this.playerName, score.getValue()));
+                } else {
+                    t.add(new ScoreInfo(this.playerName, score.getValue()));
+                    t.save(HIGH_SCORES_FILE);
+                }
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -108,9 +141,7 @@ public class GameFlow {
     public Menu<Task<Void>> initializeMenu() {
         Menu<Task<Void>> menu = new MenuAnimation<Task<Void>>(this.keyboard, this.ar);
 
-        // create a new highscores file
-        File f = new File("highscores.txt");
-        HighScoresTable t = HighScoresTable.loadFromFile(f);
+        HighScoresTable t = this.highScores;
         Animation scores = new KeyPressStoppableAnimation(gui.getKeyboardSensor(), KeyboardSensor.SPACE_KEY,
                 new HighScoresAnimation(t));
 
@@ -118,6 +149,19 @@ public class GameFlow {
 
         Task<Void> quitTask = new Task<Void>() {
             public Void run() {
+                // dumping the frame metrics of the session
+                try {
+                    ar.getMetrics().writeCsv(new File("frame_metrics.csv"));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                if (journal != null) {
+                    try {
+                        journal.close();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
                 gui.close();
                 System.exit(1);
                 return null;
@@ -129,11 +173,6 @@ public class GameFlow {
             public Void run() {
                 // creating the gameFlow
                 GameFlow.this.runGame();
-                try {
-                    t.load(f);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
                 // scores
                 Animation scorez = new KeyPressStoppableAnimation(gui.getKeyboardSensor(), KeyboardSensor.SPACE_KEY,
                         new HighScoresAnimation(t));
@@ -151,13 +190,41 @@ public class GameFlow {
      * @return a new SpaceInvaders level to run.
      */
     public LevelInformation spaceInvadersLevel(int num) {
+        return spaceInvadersLevel(num, this.gui.getDrawSurface().getWidth(), this.gui.getDrawSurface().getHeight());
+    }
+
+    /**
+     * Creates a new SpaceInvaders level for a screen of the given size.
+     * @param num the BattleNo.
+     * @param width the screen's width.
+     * @param height the screen's height.
+     * @return a new SpaceInvaders level to run.
+     */
+    public static LevelInformation spaceInvadersLevel(int num, int width, int height) {
         String levelName = "Battle no. " + num;
 
         Fill background = new Fill(Color.BLACK);
         int paddleSpeed = 650;
         int paddleWidth = 60;
-        Tuple<Integer, Integer> scale = new Tuple<>(this.gui.getDrawSurface().getWidth(),
-                                                    this.gui.getDrawSurface().getHeight());
+
+        // the definitions are looked up on every battle, but Definitions caches them, so the
+        // file is only read once. The aliens and shields are laid out by GameLevel, so only
+        // the paddle and background are taken from it.
+        try {
+            List<DefinedLevel> definitions = Definitions.levels(SPACE_INVADERS_DEFINITIONS, width, height);
+            if (definitions.isEmpty()) {
+                System.out.println("No levels in " + SPACE_INVADERS_DEFINITIONS);
+            } else {
+                DefinedLevel definition = definitions.get(0);
+                background = definition.getBackgroundFill();
+                paddleSpeed = definition.paddleSpeed();
+                paddleWidth = definition.paddleWidth();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Couldn't read " + SPACE_INVADERS_DEFINITIONS);
+            e.printStackTrace();
+        }
+        Tuple<Integer, Integer> scale = new Tuple<>(width, height);
         LevelInformation l = new GeneralLevelCreator(levelName, new ArrayList<Velocity>(), background, paddleSpeed,
                                                      paddleWidth, new ArrayList<Block>(), scale);
         return l;
@@ -2,18 +2,15 @@ package game.levels;
 
 import java.awt.Color;
 import java.awt.Image;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.imageio.ImageIO;
-
 import biuoop.DrawSurface;
 import biuoop.KeyboardSensor;
-import game.animation.Animation;
 import game.animation.AnimationRunner;
 import game.animation.CountdownAnimation;
 import game.animation.PauseScreen;
+import game.animation.SteppedAnimation;
 import game.collections.GameEnvironment;
 import game.collections.SpriteCollection;
 import game.decorators.KeyPressStoppableAnimation;
@@ -22,23 +19,30 @@ import game.geometry.Rectangle;
 import game.hitListeners.BallRemover;
 import game.hitListeners.BlockRemover;
 import game.hitListeners.ScoreTrackingListener;
+import game.metrics.FrameMetrics;
 import game.misc.Counter;
 import game.misc.Fill;
+import game.misc.ImageCache;
+import game.misc.IntCounter;
 import game.objects.AlienSquad;
 import game.objects.Block;
+import game.objects.Shield;
 import game.objects.SpaceShip;
-import game.objects.bullet.Bullet;
+import game.objects.bullet.BulletSystem;
+import game.objects.bullet.Velocity;
 import game.objects.collidable.Collidable;
 import game.objects.sprite.LevelIndicator;
 import game.objects.sprite.LivesIndicator;
 import game.objects.sprite.ScoreIndicator;
 import game.objects.sprite.Sprite;
+import game.objects.sprite.StaticLayer;
 
 /**
  * @author Yuval Ezra An Arkanoid game.
  */
-public class GameLevel implements Animation {
+public class GameLevel implements SteppedAnimation {
     private SpriteCollection sprites;
+    private StaticLayer staticLayer;
     private GameEnvironment environment;
     private int wid;
     private int len;
@@ -54,9 +58,14 @@ public class GameLevel implements Animation {
 
     private LevelInformation level;
     private AlienSquad a;
+    private BulletSystem bulletSystem;
     private double shieldHeight;
     private int battleNo;
 
+    // whether the frame metrics are drawn, and whether their key was down last step
+    private boolean showMetrics;
+    private boolean metricsKeyDown;
+
     /**
      * A constructor for a GameLevel.
      * @param level the level we would play.
@@ -95,6 +104,15 @@ public class GameLevel implements Animation {
         this.sprites.addSprite(s);
     }
 
+    /**
+     * Add a Sprite that rarely changes to the Game's static layer, which is drawn under
+     * all of the other Sprites. A Sprite that may change should implement Versioned.
+     * @param s a Sprite to add to the Game's static layer.
+     */
+    public void addStaticSprite(Sprite s) {
+        this.staticLayer.addSprite(s);
+    }
+
     /**
      * Removes Collidable c from this Game.
      * @param c the Collidable to remove from this Game.
@@ -118,6 +136,13 @@ public class GameLevel implements Animation {
         return this.environment;
     }
 
+    /**
+     * @return the BulletSystem that holds the shots fired in this Game.
+     */
+    public BulletSystem getBulletSystem() {
+        return this.bulletSystem;
+    }
+
     /**
      * @return this remainingBlocks.
      */
@@ -133,10 +158,12 @@ public class GameLevel implements Animation {
 
         this.sprites = new SpriteCollection();
         this.environment = new GameEnvironment();
+        this.staticLayer = new StaticLayer();
+        this.addSprite(this.staticLayer);
 
         // initialize the Counters
-        this.remainingBlocks = new Counter(0);
-        this.remainingBalls = new Counter(0);
+        this.remainingBlocks = new IntCounter(0);
+        this.remainingBalls = new IntCounter(0);
 
         // initialize the HitListeners
         BlockRemover blockRemover = new BlockRemover(this, this.remainingBlocks);
@@ -148,7 +175,8 @@ public class GameLevel implements Animation {
         int thickness = 26;
 
         // creating the border blocks, screen and scoreboard
-        this.addSprite(new Block(new Rectangle(new Point(0, 0), this.wid, this.len), Color.BLUE.darker().darker(), -1));
+        this.addStaticSprite(new Block(new Rectangle(new Point(0, 0), this.wid, this.len),
+                                       Color.BLUE.darker().darker(), -1));
 
         // right border
         specialBlocks.add(new Block(new Rectangle(new Point(this.wid, 0), thickness, this.len), Color.GRAY, -1));
@@ -176,12 +204,14 @@ public class GameLevel implements Animation {
         deathBorder.addHitListener(ballRemover);
         specialBlocks.add(deathBorder);
 
-        this.addSprite(this.level.getBackground());
+        this.addStaticSprite(this.level.getBackground());
         java.util.List<Block> blocks = this.level.blocks();
 
         // adding the special Blocks to this Game
         for (Block b : specialBlocks) {
-            b.addToGame(this);
+            this.addCollidable(b);
+            b.setEnvironment(this.environment);
+            this.addStaticSprite(b);
             b.addHitListener(ballRemover);
         }
 
@@ -196,10 +226,16 @@ public class GameLevel implements Animation {
 
         this.createAliens();
 
-        // adding the score and life counters
-        this.addSprite(scoreboard);
-        this.addSprite(liveIndicator);
-        this.addSprite(levelIndicator);
+        // the shots, drawn over everything but the score and life counters
+        this.bulletSystem = new BulletSystem(this.environment);
+        this.bulletSystem.addToGame(this);
+
+        // adding the score and life counters, drawn on a strip that is only redrawn when they change
+        StaticLayer hud = new StaticLayer(0, 0, this.wid, scoreboardThickness);
+        hud.addSprite(scoreboard);
+        hud.addSprite(liveIndicator);
+        hud.addSprite(levelIndicator);
+        this.addSprite(hud);
     }
 
     /**
@@ -215,15 +251,11 @@ public class GameLevel implements Animation {
         int lineSpace = 45, widSpace = 8, hitPoints = 1;
         int height = 30, width = 40;
 
-        Image image = null;
+        // the image is decoded once here, and scaled once by the first Block. Every alien of
+        // every level shares the cached images.
         String imagePath = "block_images/enemy.png";
-        try {
-            image = ImageIO.read(ClassLoader.getSystemClassLoader().getResourceAsStream(imagePath));
-        } catch (IOException e) {
-            System.out.println("Couldn't open image " + imagePath);
-            e.printStackTrace();
-        }
-        Fill f = new Fill(image);
+        Image image = ImageCache.load(imagePath);
+        Fill f = image != null ? new Fill(image) : new Fill(Color.GREEN);
 
         Block[][] aliens = new Block[alienLen][alienWid];
         for (int i = 0; i < alienLen; i++) {
@@ -251,7 +283,6 @@ public class GameLevel implements Animation {
      * Creates this Game's shields.
      */
     private void createShields() {
-        BlockRemover shieldRemover = new BlockRemover(this, new Counter(0));
         BallRemover ballRemover = new BallRemover(this, this.remainingBalls);
         double startX = 100;
         this.shieldHeight = this.len - 100;
@@ -260,20 +291,13 @@ public class GameLevel implements Animation {
         double shieldSpace = 90;
 
         double width = 5;
+        int cols = (int) (shieldWid / width), rows = 3;
         // creating the shields
         for (int i = 1; i <= 3; i++) {
-            double totalWid = 0;
-            for (int j = 0; j < shieldWid; j += width, totalWid += width) {
-                for (int k = 0; k < width * 3; k += width) {
-                    Rectangle r = new Rectangle(new Point(startX + j, this.shieldHeight + k), width, width);
-                    Block b = new Block(r, c, 1);
-                    b.addHitListener(shieldRemover);
-                    b.addHitListener(ballRemover);
-                    b.addToGame(this);
-                }
-            }
+            Shield shield = new Shield(new Point(startX, this.shieldHeight), cols, rows, width, c, ballRemover);
+            shield.addToGame(this);
 
-            startX += shieldSpace + totalWid;
+            startX += shieldSpace + cols * width;
         }
     }
 
@@ -319,21 +343,13 @@ public class GameLevel implements Animation {
      */
     public void createBallsOnTopOfPaddle() {
 
-        // creating the Balls
-        List<Bullet> balls = new ArrayList<>();
+        // the Balls are fired from above the Paddle, and move with the rest of the shots
         Rectangle c = this.paddle.getCollisionRectangle();
         double x = c.getUpperLeft().getX() + c.getWidth() / 2;
         double y = c.getUpperLeft().getY() - 10;
-        Point sharedCenter = new Point(x, y);
-
         for (int i = 0; i < this.level.numberOfBalls(); i++) {
-            balls.add(new Bullet(sharedCenter, 5, java.awt.Color.WHITE));
-            balls.get(i).setVelocity(this.level.initialBallVelocities().get(i));
-        }
-
-        // adds the Balls to this Game
-        for (Bullet ball : balls) {
-            ball.addToGame(this);
+            Velocity v = this.level.initialBallVelocities().get(i);
+            this.bulletSystem.fire(x, y, 5, v.getDX(), v.getDY(), false, java.awt.Color.WHITE);
             this.remainingBalls.increase(1);
         }
     }
@@ -354,12 +370,45 @@ public class GameLevel implements Animation {
 
     @Override
     public void doOneFrame(DrawSurface d, double dt) {
+        this.render(d, 0);
+        this.update(dt);
+    }
+
+    @Override
+    public void update(double dt) {
         if (this.keyboard.isPressed("p")) {
             this.runner.run(new KeyPressStoppableAnimation(this.keyboard, KeyboardSensor.SPACE_KEY, new PauseScreen()));
         }
 
-        this.sprites.drawAllOn(d);
+        // toggling the metrics overlay once per key press
+        boolean metricsKey = this.keyboard.isPressed("m");
+        if (metricsKey && !this.metricsKeyDown) {
+            this.showMetrics = !this.showMetrics;
+        }
+        this.metricsKeyDown = metricsKey;
+
+        // the hits of a tick change the counters as a single change, so the HUD redraws once
+        this.score.beginBatch();
+        this.remainingBlocks.beginBatch();
+        this.remainingBalls.beginBatch();
         this.sprites.notifyAllTimePassed(dt);
+        this.score.endBatch();
+        this.remainingBlocks.endBatch();
+        this.remainingBalls.endBatch();
+
+        FrameMetrics metrics = this.runner.getMetrics();
+        metrics.record(FrameMetrics.Phase.COLLISION, this.environment.takeCollisionNanos());
+        metrics.recordCounts(this.sprites.size(), this.environment.size());
+    }
+
+    @Override
+    public void render(DrawSurface d, double alpha) {
+        // the Sprites keep no previous position to interpolate from, so the
+        // latest simulation step is drawn as is
+        this.sprites.drawAllOn(d);
+        if (this.showMetrics) {
+            this.runner.getMetrics().drawOverlay(d);
+        }
     }
 
     @Override
@@ -386,6 +435,6 @@ public class GameLevel implements Animation {
      * Removes all Balls from this game.
      */
     private void removeBalls() {
-        this.sprites.removeBalls();
+        this.bulletSystem.clear();
     }
 }
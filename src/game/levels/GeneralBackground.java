@@ -5,6 +5,7 @@ import java.awt.Image;
 
 import biuoop.DrawSurface;
 import game.misc.Fill;
+import game.misc.ImageCache;
 import game.objects.sprite.Sprite;
 
 /**
@@ -27,7 +28,7 @@ public class GeneralBackground implements Sprite {
         this.height = height;
         this.fill = fill;
         if (fill.getImage() != null) {
-            Image im = fill.getImage().getScaledInstance(width, height, Image.SCALE_DEFAULT);
+            Image im = ImageCache.scaled(fill.getImage(), width, height);
             this.fill = new Fill(im);
         }
     }
@@ -0,0 +1,77 @@
+package game.levels.definitions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import game.geometry.Point;
+import game.geometry.Rectangle;
+import game.misc.Fill;
+import game.objects.Block;
+
+/**
+ * @author Yuval Ezra.
+ * The definition of a Block symbol ("bdef") in a block definitions file.
+ * It creates new Blocks of that kind, wherever they're placed.
+ */
+public class BlockDefinition {
+    private double width;
+    private double height;
+    private int hitPoints;
+
+    // the fill for every hit-point count, from 1 up, and the Block's stroke
+    private List<LazyFill> fills;
+    private LazyFill stroke;
+
+    // the Fills themselves, resolved for the first Block
+    private List<Fill> resolved;
+
+    /**
+     * A constructor for BlockDefinition.
+     * @param width the Blocks' width.
+     * @param height the Blocks' height.
+     * @param hitPoints the Blocks' hit-points.
+     * @param fills the Blocks' fills, by the hit-points they are shown at. Key 0 is the default fill.
+     * @param stroke the Blocks' stroke, or null if they have none.
+     */
+    public BlockDefinition(double width, double height, int hitPoints, Map<Integer, LazyFill> fills,
+                           LazyFill stroke) {
+        this.width = width;
+        this.height = height;
+        this.hitPoints = hitPoints;
+        this.fills = new ArrayList<>();
+        for (int i = 1; i <= Math.max(1, hitPoints); i++) {
+            LazyFill f = fills.containsKey(i) ? fills.get(i) : fills.get(0);
+            if (f == null) {
+                throw new IllegalArgumentException("no fill for " + i + " hit-points");
+            }
+            this.fills.add(f);
+        }
+        this.stroke = stroke;
+        this.resolved = null;
+    }
+
+    /**
+     * @return the Blocks' width.
+     */
+    public double getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Creates a new Block of this kind.
+     * @param x the Block's upper left x.
+     * @param y the Block's upper left y.
+     * @return the new Block.
+     */
+    public Block create(double x, double y) {
+        if (this.resolved == null) {
+            this.resolved = new ArrayList<>();
+            for (LazyFill f : this.fills) {
+                this.resolved.add(f.get());
+            }
+        }
+        Fill s = this.stroke == null ? null : this.stroke.get();
+        return new Block(new Rectangle(new Point(x, y), this.width, this.height), this.resolved, s, this.hitPoints);
+    }
+}
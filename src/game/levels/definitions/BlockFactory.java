@@ -0,0 +1,158 @@
+package game.levels.definitions;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+import game.objects.Block;
+
+/**
+ * @author Yuval Ezra.
+ * The Blocks and spacers of a block definitions file, by their symbols.
+ * A file is made of lines such as:
+ * <pre>
+ * default height:25 width:50 hit_points:1
+ * bdef symbol:G hit_points:2 fill:color(lightGray) fill-2:color(gray)
+ * sdef symbol:- width:50
+ * </pre>
+ */
+public class BlockFactory {
+    private Map<Character, BlockDefinition> blocks;
+    private Map<Character, Double> spacers;
+
+    /**
+     * A constructor for BlockFactory.
+     */
+    public BlockFactory() {
+        this.blocks = new HashMap<>();
+        this.spacers = new HashMap<>();
+    }
+
+    /**
+     * Reads a block definitions file in a single pass.
+     * @param reader the file's reader.
+     * @return the BlockFactory of the file's definitions.
+     * @throws IOException if the file couldn't be read.
+     */
+    public static BlockFactory fromReader(Reader reader) throws IOException {
+        BlockFactory factory = new BlockFactory();
+        Map<String, String> defaults = new HashMap<>();
+        BufferedReader lines = new BufferedReader(reader);
+        int lineNo = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNo++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                if (line.startsWith("default ")) {
+                    defaults.putAll(Definitions.properties(line.substring("default ".length())));
+                } else if (line.startsWith("bdef ")) {
+                    Map<String, String> props = new HashMap<>(defaults);
+                    props.putAll(Definitions.properties(line.substring("bdef ".length())));
+                    factory.blocks.put(symbol(props), definition(props));
+                } else if (line.startsWith("sdef ")) {
+                    Map<String, String> props = Definitions.properties(line.substring("sdef ".length()));
+                    factory.spacers.put(symbol(props), Double.parseDouble(required(props, "width")));
+                } else {
+                    throw new IllegalArgumentException("unknown definition");
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("line " + lineNo + ": " + e.getMessage() + ": " + line, e);
+            }
+        }
+        return factory;
+    }
+
+    /**
+     * @param symbol a symbol.
+     * @return true if 'symbol' is a spacer's symbol.
+     */
+    public boolean isSpaceSymbol(char symbol) {
+        return this.spacers.containsKey(symbol);
+    }
+
+    /**
+     * @param symbol a symbol.
+     * @return true if 'symbol' is a Block's symbol.
+     */
+    public boolean isBlockSymbol(char symbol) {
+        return this.blocks.containsKey(symbol);
+    }
+
+    /**
+     * @param symbol a spacer's symbol.
+     * @return the spacer's width.
+     */
+    public double getSpaceWidth(char symbol) {
+        return this.spacers.get(symbol);
+    }
+
+    /**
+     * @param symbol a Block's symbol.
+     * @return the width of the Blocks of that symbol.
+     */
+    public double getBlockWidth(char symbol) {
+        return this.blocks.get(symbol).getWidth();
+    }
+
+    /**
+     * Creates a new Block.
+     * @param symbol the Block's symbol.
+     * @param x the Block's upper left x.
+     * @param y the Block's upper left y.
+     * @return the new Block.
+     */
+    public Block getBlock(char symbol, double x, double y) {
+        return this.blocks.get(symbol).create(x, y);
+    }
+
+    /**
+     * @param props a definition's properties.
+     * @return the definition's symbol.
+     */
+    private static char symbol(Map<String, String> props) {
+        String symbol = required(props, "symbol");
+        if (symbol.length() != 1) {
+            throw new IllegalArgumentException("a symbol must be a single character");
+        }
+        return symbol.charAt(0);
+    }
+
+    /**
+     * @param props a Block definition's properties, including the defaults.
+     * @return the Block definition.
+     */
+    private static BlockDefinition definition(Map<String, String> props) {
+        double width = Double.parseDouble(required(props, "width"));
+        double height = Double.parseDouble(required(props, "height"));
+        int hitPoints = Integer.parseInt(required(props, "hit_points"));
+        Map<Integer, LazyFill> fills = new HashMap<>();
+        for (Map.Entry<String, String> e : props.entrySet()) {
+            if (e.getKey().equals("fill")) {
+                fills.put(0, new LazyFill(e.getValue()));
+            } else if (e.getKey().startsWith("fill-")) {
+                fills.put(Integer.parseInt(e.getKey().substring("fill-".length())), new LazyFill(e.getValue()));
+            }
+        }
+        LazyFill stroke = props.containsKey("stroke") ? new LazyFill(props.get("stroke")) : null;
+        return new BlockDefinition(width, height, hitPoints, fills, stroke);
+    }
+
+    /**
+     * @param props a definition's properties.
+     * @param key a property's name.
+     * @return the property's value.
+     */
+    private static String required(Map<String, String> props, String key) {
+        String value = props.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("missing " + key);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,122 @@
+package game.levels.definitions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import game.levels.GeneralBackground;
+import game.levels.LevelInformation;
+import game.misc.Fill;
+import game.objects.Block;
+import game.objects.bullet.Velocity;
+import game.objects.sprite.Sprite;
+
+/**
+ * @author Yuval Ezra.
+ * A level read from a level definitions file.
+ * The level keeps where its Blocks are placed, and creates new Blocks every time it's played.
+ */
+public class DefinedLevel implements LevelInformation {
+    private String levelName;
+    private List<Velocity> ballVelocities;
+    private LazyFill background;
+    private int paddleSpeed;
+    private int paddleWidth;
+    private int blocksToRemove;
+
+    // the Blocks' symbols and upper left corners
+    private BlockFactory factory;
+    private String symbols;
+    private double[] xs;
+    private double[] ys;
+
+    private int width;
+    private int height;
+    private Sprite backgroundSprite;
+
+    /**
+     * A constructor for DefinedLevel.
+     * @param levelName the level's name.
+     * @param ballVelocities the level's ball velocities.
+     * @param background the level's background.
+     * @param paddleSpeed the level's paddle's speed.
+     * @param paddleWidth the level's paddle's width.
+     * @param blocksToRemove the number of Blocks to remove to clear the level.
+     * @param factory the BlockFactory of the level's Blocks.
+     * @param symbols the Blocks' symbols.
+     * @param xs the Blocks' upper left x coordinates.
+     * @param ys the Blocks' upper left y coordinates.
+     * @param width the screen's width.
+     * @param height the screen's height.
+     */
+    public DefinedLevel(String levelName, List<Velocity> ballVelocities, LazyFill background, int paddleSpeed,
+                        int paddleWidth, int blocksToRemove, BlockFactory factory, String symbols,
+                        double[] xs, double[] ys, int width, int height) {
+        this.levelName = levelName;
+        this.ballVelocities = ballVelocities;
+        this.background = background;
+        this.paddleSpeed = paddleSpeed;
+        this.paddleWidth = paddleWidth;
+        this.blocksToRemove = blocksToRemove;
+        this.factory = factory;
+        this.symbols = symbols;
+        this.xs = xs;
+        this.ys = ys;
+        this.width = width;
+        this.height = height;
+        this.backgroundSprite = null;
+    }
+
+    @Override
+    public int numberOfBalls() {
+        return this.ballVelocities.size();
+    }
+
+    @Override
+    public List<Velocity> initialBallVelocities() {
+        return this.ballVelocities;
+    }
+
+    @Override
+    public int paddleSpeed() {
+        return this.paddleSpeed;
+    }
+
+    @Override
+    public int paddleWidth() {
+        return this.paddleWidth;
+    }
+
+    @Override
+    public String levelName() {
+        return this.levelName;
+    }
+
+    /**
+     * @return this level's background Fill.
+     */
+    public Fill getBackgroundFill() {
+        return this.background.get();
+    }
+
+    @Override
+    public Sprite getBackground() {
+        if (this.backgroundSprite == null) {
+            this.backgroundSprite = new GeneralBackground(this.width, this.height, this.background.get());
+        }
+        return this.backgroundSprite;
+    }
+
+    @Override
+    public List<Block> blocks() {
+        List<Block> blocks = new ArrayList<>(this.symbols.length());
+        for (int i = 0; i < this.symbols.length(); i++) {
+            blocks.add(this.factory.getBlock(this.symbols.charAt(i), this.xs[i], this.ys[i]));
+        }
+        return blocks;
+    }
+
+    @Override
+    public int numberOfBlocksToRemove() {
+        return this.blocksToRemove;
+    }
+}
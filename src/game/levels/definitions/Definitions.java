@@ -0,0 +1,160 @@
+package game.levels.definitions;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import game.misc.Fill;
+import game.misc.ImageCache;
+
+/**
+ * @author Yuval Ezra.
+ * Reads the definitions files from the resources.
+ * Every file is read once per process, however many times its levels are played,
+ * and every image is only loaded, through the ImageCache, when a Fill first needs it.
+ */
+public final class Definitions {
+
+    // what was already read, by resource path
+    private static Map<String, BlockFactory> factories = new HashMap<>();
+    private static Map<String, List<DefinedLevel>> levels = new HashMap<>();
+    private static Map<String, List<LevelSet>> levelSets = new HashMap<>();
+
+    /**
+     * Not to be created.
+     */
+    private Definitions() {
+    }
+
+    /**
+     * @param path the resource path of a block definitions file.
+     * @return the file's BlockFactory.
+     * @throws IOException if the file couldn't be read.
+     */
+    public static synchronized BlockFactory blockFactory(String path) throws IOException {
+        BlockFactory factory = factories.get(path);
+        if (factory == null) {
+            try (Reader reader = open(path)) {
+                factory = BlockFactory.fromReader(reader);
+            }
+            factories.put(path, factory);
+        }
+        return factory;
+    }
+
+    /**
+     * @param path the resource path of a level definitions file.
+     * @param width the screen's width.
+     * @param height the screen's height.
+     * @return the file's levels.
+     * @throws IOException if the file, or one of its block definitions files, couldn't be read.
+     */
+    public static synchronized List<DefinedLevel> levels(String path, int width, int height)
+            throws IOException {
+        String key = path + "@" + width + "x" + height;
+        List<DefinedLevel> read = levels.get(key);
+        if (read == null) {
+            try (Reader reader = open(path)) {
+                read = Collections.unmodifiableList(new LevelSpecificationReader(width, height).fromReader(reader));
+            }
+            levels.put(key, read);
+        }
+        return read;
+    }
+
+    /**
+     * @param path the resource path of a level sets file.
+     * @return the file's level sets.
+     * @throws IOException if the file couldn't be read.
+     */
+    public static synchronized List<LevelSet> levelSets(String path) throws IOException {
+        List<LevelSet> read = levelSets.get(path);
+        if (read == null) {
+            try (Reader reader = open(path)) {
+                read = Collections.unmodifiableList(LevelSet.fromReader(reader));
+            }
+            levelSets.put(path, read);
+        }
+        return read;
+    }
+
+    /**
+     * Parses a Fill: "color(name)", "color(RGB(r,g,b))" or "image(path)".
+     * An image that can't be loaded is replaced by a gray colour.
+     * @param spec the Fill as it's written in a definitions file.
+     * @return the Fill.
+     */
+    public static Fill parseFill(String spec) {
+        if (spec.startsWith("image(") && spec.endsWith(")")) {
+            Image image = ImageCache.load(spec.substring("image(".length(), spec.length() - 1));
+            return image != null ? new Fill(image) : new Fill(Color.GRAY);
+        }
+        if (spec.startsWith("color(") && spec.endsWith(")")) {
+            return new Fill(parseColor(spec.substring("color(".length(), spec.length() - 1)));
+        }
+        throw new IllegalArgumentException("unknown fill " + spec);
+    }
+
+    /**
+     * Parses a colour: a java.awt.Color constant's name, or "RGB(r,g,b)".
+     * @param spec the colour as it's written in a definitions file.
+     * @return the Color.
+     */
+    public static Color parseColor(String spec) {
+        if (spec.startsWith("RGB(") && spec.endsWith(")")) {
+            String[] rgb = spec.substring("RGB(".length(), spec.length() - 1).split(",");
+            if (rgb.length != 3) {
+                throw new IllegalArgumentException("unknown color " + spec);
+            }
+            return new Color(Integer.parseInt(rgb[0].trim()), Integer.parseInt(rgb[1].trim()),
+                             Integer.parseInt(rgb[2].trim()));
+        }
+        try {
+            Object c = Color.class.getField(spec).get(null);
+            if (c instanceof Color) {
+                return (Color) c;
+            }
+        } catch (ReflectiveOperationException e) {
+            // not a colour's name
+        }
+        throw new IllegalArgumentException("unknown color " + spec);
+    }
+
+    /**
+     * Splits a definition's "key:value" pairs.
+     * @param line the pairs, separated by spaces.
+     * @return the values, by their keys.
+     */
+    static Map<String, String> properties(String line) {
+        Map<String, String> props = new HashMap<>();
+        for (String pair : line.trim().split("\\s+")) {
+            int colon = pair.indexOf(':');
+            if (colon == -1) {
+                throw new IllegalArgumentException("expected key:value, got " + pair);
+            }
+            props.put(pair.substring(0, colon), pair.substring(colon + 1));
+        }
+        return props;
+    }
+
+    /**
+     * @param path a resource path.
+     * @return a reader of the resource.
+     * @throws IOException if there's no such resource.
+     */
+    private static Reader open(String path) throws IOException {
+        InputStream in = ClassLoader.getSystemClassLoader().getResourceAsStream(path);
+        if (in == null) {
+            throw new IOException("Couldn't find " + path);
+        }
+        return new InputStreamReader(in, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,39 @@
+package game.levels.definitions;
+
+import game.misc.Fill;
+
+/**
+ * @author Yuval Ezra.
+ * A Fill read from a definitions file, such as "color(red)" or "image(block_images/zebra.jpg)".
+ * The Fill, and its image, are only created the first time they are needed.
+ */
+public class LazyFill {
+    private String spec;
+    private Fill fill;
+
+    /**
+     * A constructor for LazyFill.
+     * @param spec the Fill as it's written in the definitions file.
+     */
+    public LazyFill(String spec) {
+        this.spec = spec;
+        this.fill = null;
+    }
+
+    /**
+     * @return the Fill, created on the first call.
+     */
+    public Fill get() {
+        if (this.fill == null) {
+            this.fill = Definitions.parseFill(this.spec);
+        }
+        return this.fill;
+    }
+
+    /**
+     * @return the Fill as it's written in the definitions file.
+     */
+    public String toString() {
+        return this.spec;
+    }
+}
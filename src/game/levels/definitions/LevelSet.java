@@ -0,0 +1,97 @@
+package game.levels.definitions;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Yuval Ezra.
+ * A set of levels from a level sets file. Every set is written as two lines:
+ * <pre>
+ * e:Easy
+ * definitions/easy_level_definitions.txt
+ * </pre>
+ */
+public class LevelSet {
+    private String key;
+    private String name;
+    private String path;
+
+    /**
+     * A constructor for LevelSet.
+     * @param key the key that selects this set.
+     * @param name the set's name.
+     * @param path the resource path of the set's level definitions file.
+     */
+    public LevelSet(String key, String name, String path) {
+        this.key = key;
+        this.name = name;
+        this.path = path;
+    }
+
+    /**
+     * Reads the sets of a level sets file.
+     * @param reader the file's reader.
+     * @return the file's level sets, in order.
+     * @throws IOException if the file couldn't be read.
+     */
+    public static List<LevelSet> fromReader(Reader reader) throws IOException {
+        List<LevelSet> sets = new ArrayList<>();
+        BufferedReader lines = new BufferedReader(reader);
+        String header = null;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (header == null) {
+                header = line;
+                continue;
+            }
+            int colon = header.indexOf(':');
+            if (colon == -1) {
+                throw new IllegalArgumentException("expected key:name: " + header);
+            }
+            sets.add(new LevelSet(header.substring(0, colon), header.substring(colon + 1), line));
+            header = null;
+        }
+        if (header != null) {
+            throw new IllegalArgumentException("no level definitions file for: " + header);
+        }
+        return sets;
+    }
+
+    /**
+     * @return the key that selects this set.
+     */
+    public String getKey() {
+        return this.key;
+    }
+
+    /**
+     * @return this set's name.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return the resource path of this set's level definitions file.
+     */
+    public String getPath() {
+        return this.path;
+    }
+
+    /**
+     * @param width the screen's width.
+     * @param height the screen's height.
+     * @return this set's levels, read once per process.
+     * @throws IOException if the levels couldn't be read.
+     */
+    public List<DefinedLevel> levels(int width, int height) throws IOException {
+        return Definitions.levels(this.path, width, height);
+    }
+}
@@ -0,0 +1,164 @@
+package game.levels.definitions;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import game.objects.bullet.Velocity;
+
+/**
+ * @author Yuval Ezra.
+ * Reads the levels of a level definitions file, in a single pass over its lines.
+ * Every level is written between START_LEVEL and END_LEVEL, as "key:value" lines followed
+ * by its Blocks' layout between START_BLOCKS and END_BLOCKS.
+ */
+public class LevelSpecificationReader {
+    private int width;
+    private int height;
+
+    /**
+     * A constructor for LevelSpecificationReader.
+     * @param width the screen's width.
+     * @param height the screen's height.
+     */
+    public LevelSpecificationReader(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Reads the levels of a level definitions file.
+     * @param reader the file's reader.
+     * @return the file's levels, in order.
+     * @throws IOException if the file, or one of its block definitions files, couldn't be read.
+     */
+    public List<DefinedLevel> fromReader(Reader reader) throws IOException {
+        List<DefinedLevel> levels = new ArrayList<>();
+        BufferedReader lines = new BufferedReader(reader);
+        Map<String, String> props = null;
+        BlockFactory factory = null;
+        StringBuilder symbols = new StringBuilder();
+        double[] xs = new double[16];
+        double[] ys = new double[16];
+        double y = 0;
+        boolean inBlocks = false;
+        int lineNo = 0;
+        int levelLineNo = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNo++;
+            try {
+                if (inBlocks) {
+                    line = line.trim();
+                    if (line.equals("END_BLOCKS")) {
+                        inBlocks = false;
+                        continue;
+                    }
+
+                    // every line is a row of Blocks and spacers, from left to right
+                    double x = Double.parseDouble(required(props, "blocks_start_x"));
+                    for (int i = 0; i < line.length(); i++) {
+                        char c = line.charAt(i);
+                        if (factory.isSpaceSymbol(c)) {
+                            x += factory.getSpaceWidth(c);
+                        } else if (factory.isBlockSymbol(c)) {
+                            if (symbols.length() == xs.length) {
+                                xs = Arrays.copyOf(xs, xs.length * 2);
+                                ys = Arrays.copyOf(ys, ys.length * 2);
+                            }
+                            xs[symbols.length()] = x;
+                            ys[symbols.length()] = y;
+                            symbols.append(c);
+                            x += factory.getBlockWidth(c);
+                        } else {
+                            throw new IllegalArgumentException("unknown symbol '" + c + "'");
+                        }
+                    }
+                    y += Double.parseDouble(required(props, "row_height"));
+                    continue;
+                }
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (line.equals("START_LEVEL")) {
+                    if (props != null) {
+                        throw new IllegalArgumentException("unterminated level");
+                    }
+                    levelLineNo = lineNo;
+                    props = new HashMap<>();
+                    factory = null;
+                    symbols.setLength(0);
+                } else if (props == null) {
+                    throw new IllegalArgumentException("expected START_LEVEL");
+                } else if (line.equals("START_BLOCKS")) {
+                    factory = Definitions.blockFactory(required(props, "block_definitions"));
+                    y = Double.parseDouble(required(props, "blocks_start_y"));
+                    inBlocks = true;
+                } else if (line.equals("END_LEVEL")) {
+                    levels.add(this.level(props, factory, symbols.toString(), xs, ys));
+                    props = null;
+                } else {
+                    int colon = line.indexOf(':');
+                    if (colon == -1) {
+                        throw new IllegalArgumentException("expected key:value");
+                    }
+                    props.put(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("line " + lineNo + ": " + e.getMessage() + ": " + line, e);
+            }
+        }
+        if (props != null) {
+            throw new IllegalArgumentException("line " + levelLineNo + ": unterminated level");
+        }
+        return levels;
+    }
+
+    /**
+     * Creates a level from its properties and Blocks.
+     * @param props the level's "key:value" properties.
+     * @param factory the BlockFactory of the level's Blocks, or null if it has no Blocks.
+     * @param symbols the Blocks' symbols.
+     * @param xs the Blocks' upper left x coordinates.
+     * @param ys the Blocks' upper left y coordinates.
+     * @return the level.
+     */
+    private DefinedLevel level(Map<String, String> props, BlockFactory factory, String symbols,
+                                   double[] xs, double[] ys) {
+        List<Velocity> velocities = new ArrayList<>();
+        for (String v : required(props, "ball_velocities").split("\\s+")) {
+            String[] angleAndSpeed = v.split(",");
+            if (angleAndSpeed.length != 2) {
+                throw new IllegalArgumentException("a ball velocity must be angle,speed");
+            }
+            velocities.add(Velocity.fromAngleAndSpeed(Double.parseDouble(angleAndSpeed[0]),
+                                                      Double.parseDouble(angleAndSpeed[1])));
+        }
+        int blocksToRemove = props.containsKey("num_blocks")
+                ? Integer.parseInt(props.get("num_blocks")) : symbols.length();
+        return new DefinedLevel(required(props, "level_name"), velocities, new LazyFill(required(props, "background")),
+                                Integer.parseInt(required(props, "paddle_speed")),
+                                Integer.parseInt(required(props, "paddle_width")), blocksToRemove, factory,
+                                symbols, Arrays.copyOf(xs, symbols.length()), Arrays.copyOf(ys, symbols.length()),
+                                this.width, this.height);
+    }
+
+    /**
+     * @param props a level's properties.
+     * @param key a property's name.
+     * @return the property's value.
+     */
+    private static String required(Map<String, String> props, String key) {
+        String value = props.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("missing " + key);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,153 @@
+package game.metrics;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import biuoop.DrawSurface;
+
+/**
+ * @author Yuval Ezra.
+ * Where a frame's time goes: a Histogram per phase of the frame, the number of
+ * objects in the game per frame, and the frames that ran late.
+ */
+public class FrameMetrics {
+
+    /**
+     * The measured phases of a frame. UPDATE includes the time spent in COLLISION.
+     */
+    public enum Phase {
+        DRAW, UPDATE, COLLISION, SHOW
+    }
+
+    private Histogram[] phases;
+    private Histogram sprites;
+    private Histogram collidables;
+    private long lateFrames;
+    private long droppedSteps;
+
+    /**
+     * A constructor for FrameMetrics.
+     */
+    public FrameMetrics() {
+        this.phases = new Histogram[Phase.values().length];
+        for (int i = 0; i < this.phases.length; i++) {
+            this.phases[i] = new Histogram();
+        }
+        this.sprites = new Histogram();
+        this.collidables = new Histogram();
+    }
+
+    /**
+     * Records the time a phase took in a single frame.
+     * @param phase the phase.
+     * @param nanos the phase's time, in nanoseconds.
+     */
+    public void record(Phase phase, long nanos) {
+        this.phases[phase.ordinal()].record(nanos);
+    }
+
+    /**
+     * Records the number of objects in the game in a single frame.
+     * @param spriteCount the number of Sprites.
+     * @param collidableCount the number of Collidables.
+     */
+    public void recordCounts(int spriteCount, int collidableCount) {
+        this.sprites.record(spriteCount);
+        this.collidables.record(collidableCount);
+    }
+
+    /**
+     * Counts a frame that needed more than one simulation step.
+     */
+    public void frameLate() {
+        this.lateFrames++;
+    }
+
+    /**
+     * Counts simulation steps that were skipped.
+     * @param steps the number of skipped steps.
+     */
+    public void stepsDropped(long steps) {
+        this.droppedSteps += steps;
+    }
+
+    /**
+     * @return the number of frames that needed more than one simulation step.
+     */
+    public long getLateFrames() {
+        return this.lateFrames;
+    }
+
+    /**
+     * @return the number of simulation steps that were skipped.
+     */
+    public long getDroppedSteps() {
+        return this.droppedSteps;
+    }
+
+    /**
+     * @param phase a phase.
+     * @return the Histogram of the phase's times, in nanoseconds.
+     */
+    public Histogram getHistogram(Phase phase) {
+        return this.phases[phase.ordinal()];
+    }
+
+    /**
+     * Draws the metrics as an overlay of text.
+     * @param d the DrawSurface to draw the overlay on.
+     */
+    public void drawOverlay(DrawSurface d) {
+        int x = 10, y = 40, lineHeight = 14, fontSize = 12;
+        d.setColor(Color.YELLOW);
+        for (Phase p : Phase.values()) {
+            Histogram h = this.getHistogram(p);
+            d.drawText(x, y, String.format("%-9s p50 %7.3f  p99 %7.3f  max %7.3f ms", p,
+                                           h.percentile(0.5) / 1e6, h.percentile(0.99) / 1e6, h.max() / 1e6),
+                       fontSize);
+            y += lineHeight;
+        }
+        d.drawText(x, y, "sprites " + this.sprites.percentile(0.5) + " (max " + this.sprites.max()
+                         + "), collidables " + this.collidables.percentile(0.5)
+                         + " (max " + this.collidables.max() + ")", fontSize);
+        y += lineHeight;
+        d.drawText(x, y, "late frames " + this.lateFrames + ", dropped steps " + this.droppedSteps, fontSize);
+    }
+
+    /**
+     * Writes a summary of the metrics as CSV: a row per phase (in microseconds)
+     * and per object count.
+     * @param file the File to write to.
+     * @throws IOException if the File failed to be written.
+     */
+    public void writeCsv(File file) throws IOException {
+        PrintWriter out = new PrintWriter(file, "UTF-8");
+        try {
+            out.println("metric,count,p50,p99,max,mean");
+            for (Phase p : Phase.values()) {
+                Histogram h = this.getHistogram(p);
+                out.printf("%s_us,%d,%.1f,%.1f,%.1f,%.1f%n", p.name().toLowerCase(), h.count(),
+                           h.percentile(0.5) / 1e3, h.percentile(0.99) / 1e3, h.max() / 1e3, h.mean() / 1e3);
+            }
+            this.writeCountRow(out, "sprites", this.sprites);
+            this.writeCountRow(out, "collidables", this.collidables);
+            out.printf("late_frames,%d,,,,%n", this.lateFrames);
+            out.printf("dropped_steps,%d,,,,%n", this.droppedSteps);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes a CSV row of an object count Histogram.
+     * @param out the writer.
+     * @param name the row's name.
+     * @param h the Histogram.
+     */
+    private void writeCountRow(PrintWriter out, String name, Histogram h) {
+        out.printf("%s,%d,%d,%d,%d,%.1f%n", name, h.count(), h.percentile(0.5), h.percentile(0.99),
+                   h.max(), h.mean());
+    }
+}
@@ -0,0 +1,115 @@
+package game.metrics;
+
+/**
+ * @author Yuval Ezra.
+ * A histogram of non-negative long values, with a fixed number of buckets.
+ * Each power of two is split into 16 linear buckets, so any percentile is
+ * known to within about 6% of its value, and recording never allocates.
+ */
+public class Histogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private long[] counts;
+    private long count;
+    private long total;
+    private long max;
+
+    /**
+     * A constructor for Histogram.
+     */
+    public Histogram() {
+        this.counts = new long[64 << SUB_BITS];
+    }
+
+    /**
+     * Records a value.
+     * @param value the value to record. Negative values are recorded as 0.
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        this.counts[index(v)]++;
+        this.count++;
+        this.total += v;
+        this.max = Math.max(this.max, v);
+    }
+
+    /**
+     * @return the number of values recorded.
+     */
+    public long count() {
+        return this.count;
+    }
+
+    /**
+     * @return the largest value recorded.
+     */
+    public long max() {
+        return this.max;
+    }
+
+    /**
+     * @return the mean of the values recorded, or 0 if there are none.
+     */
+    public double mean() {
+        return this.count == 0 ? 0 : (double) this.total / this.count;
+    }
+
+    /**
+     * @param p the percentile, between 0 and 1.
+     * @return the highest value of the bucket in which the p-th percentile falls.
+     */
+    public long percentile(double p) {
+        if (this.count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(p * this.count));
+        long seen = 0;
+        for (int i = 0; i < this.counts.length; i++) {
+            seen += this.counts[i];
+            if (seen >= target) {
+                return Math.min(this.max, lowest(i + 1) - 1);
+            }
+        }
+        return this.max;
+    }
+
+    /**
+     * Forgets all the recorded values.
+     */
+    public void reset() {
+        java.util.Arrays.fill(this.counts, 0);
+        this.count = 0;
+        this.total = 0;
+        this.max = 0;
+    }
+
+    /**
+     * @param v a non-negative value.
+     * @return the index of the bucket 'v' falls in.
+     */
+    private static int index(long v) {
+        if (v < SUB_BUCKETS) {
+            return (int) v;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) ((v >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1));
+        return ((exp - SUB_BITS + 1) << SUB_BITS) + sub;
+    }
+
+    /**
+     * @param index a bucket's index.
+     * @return the lowest value that falls in that bucket.
+     */
+    private static long lowest(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exp = (index >> SUB_BITS) + SUB_BITS - 1;
+        if (exp > 62) {
+            return Long.MAX_VALUE;
+        }
+        long sub = index & (SUB_BUCKETS - 1);
+        return (1L << exp) + (sub << (exp - SUB_BITS));
+    }
+}
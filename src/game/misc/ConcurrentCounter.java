@@ -0,0 +1,94 @@
+package game.misc;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Yuval Ezra
+ * A counter that many threads may change at once.
+ * The count and the number of changes are kept in LongAdders, so threads that change it
+ * together don't contend on a single field. Batches are per thread: a thread's changes
+ * between its beginBatch() and endBatch() grow the version once if they don't cancel out,
+ * while other threads' changes count as usual.
+ */
+public class ConcurrentCounter implements Counter {
+
+    private LongAdder count;
+    private LongAdder changes;
+
+    // the calling thread's running batch, or null if it has none
+    private ThreadLocal<Batch> batch;
+
+    /**
+     * A constructor for a ConcurrentCounter.
+     * @param count the current count.
+     */
+    public ConcurrentCounter(int count) {
+        this.count = new LongAdder();
+        this.count.add(count);
+        this.changes = new LongAdder();
+        this.batch = new ThreadLocal<Batch>();
+    }
+
+    @Override
+    public void increase(int number) {
+        this.count.add(number);
+        this.changed(number);
+    }
+
+    @Override
+    public void decrease(int number) {
+        this.count.add(-number);
+        this.changed(-number);
+    }
+
+    @Override
+    public void beginBatch() {
+        if (this.batch.get() == null) {
+            this.batch.set(new Batch());
+        }
+    }
+
+    @Override
+    public void endBatch() {
+        Batch b = this.batch.get();
+        if (b != null) {
+            this.batch.remove();
+            if (b.change != 0) {
+                this.changes.increment();
+            }
+        }
+    }
+
+    @Override
+    public int getValue() {
+        return (int) this.count.sum();
+    }
+
+    @Override
+    public long getVersion() {
+        return this.changes.sum();
+    }
+
+    /**
+     * Counts a change made by the calling thread, in its batch if it has one.
+     * @param number the change to the count.
+     */
+    private void changed(int number) {
+        if (number == 0) {
+            return;
+        }
+        Batch b = this.batch.get();
+        if (b == null) {
+            this.changes.increment();
+        } else {
+            b.change += number;
+        }
+    }
+
+    /**
+     * A thread's running batch, and the change it made to the count so far.
+     */
+    private static class Batch {
+        private long change;
+    }
+}
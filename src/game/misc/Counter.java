@@ -1,42 +1,40 @@
 package game.misc;
 /**
  * @author Yuval Ezra
- * A simple counter.
+ * A counter.
+ * Its version grows whenever its count changes, so its viewers can tell when to redraw.
+ * Changes made between beginBatch() and endBatch(), e.g. all of the hits of a single tick,
+ * count as a single change.
  */
-public class Counter {
-
-    private int count;
-
-    /**
-     * A constructor for a Counter.
-     * @param count the current count.
-     */
-    public Counter(int count) {
-        this.count = count;
-    }
+public interface Counter extends Versioned {
 
     /**
      * Adds 'number' to the current count.
      * @param number the number to add to the
      * current count.
      */
-    public void increase(int number) {
-        this.count += number;
-    }
+    void increase(int number);
 
     /**
      * Subtracts 'number' from the current count.
      * @param number the number to substract from the
      * current count.
      */
-    public void decrease(int number) {
-        this.count -= number;
-    }
+    void decrease(int number);
+
+    /**
+     * Begins a batch. Until endBatch() is called, changes don't grow the version.
+     * Does nothing if a batch is already running.
+     */
+    void beginBatch();
+
+    /**
+     * Ends the running batch, growing the version once if the count changed during it.
+     */
+    void endBatch();
 
     /**
      * @return the current count.
      */
-    public int getValue() {
-        return this.count;
-    }
-}
\ No newline at end of file
+    int getValue();
+}
@@ -0,0 +1,269 @@
+package game.misc;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+/**
+ * @author Yuval Ezra.
+ * A process-wide cache of images, loaded from the resources or scaled to a size.
+ * Images are kept by their source (a resource path, or the image they were scaled from)
+ * and size. When the cached images take more memory than the cap, the least recently
+ * used ones are dropped.
+ * Every cached image is a BufferedImage in the display's own format, drawn at its final size
+ * when it's cached, so drawing it never has to convert or scale it.
+ */
+public final class ImageCache {
+
+    // the default memory cap, in bytes
+    private static final long DEFAULT_CAPACITY = 64L * 1024 * 1024;
+
+    // a pixel's estimated size, in bytes
+    private static final int BYTES_PER_PIXEL = 4;
+
+    // the cached images, from the least recently used to the most
+    private static Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private static long capacity = DEFAULT_CAPACITY;
+    private static long size = 0;
+
+    /**
+     * Not to be created.
+     */
+    private ImageCache() {
+    }
+
+    /**
+     * Loads an image from the resources, decoding it only the first time.
+     * @param path the image's resource path.
+     * @return the image, or null if it couldn't be loaded.
+     */
+    public static synchronized Image load(String path) {
+        Key key = new Key(path, -1, -1);
+        Entry e = entries.get(key);
+        if (e != null) {
+            return e.image;
+        }
+        Image image = null;
+        try (InputStream in = ClassLoader.getSystemClassLoader().getResourceAsStream(path)) {
+            if (in != null) {
+                image = ImageIO.read(in);
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+        if (image == null) {
+            System.out.println("Couldn't open image " + path);
+            return null;
+        }
+        Image compatible = compatible(image, image.getWidth(null), image.getHeight(null));
+        put(key, compatible);
+        return compatible;
+    }
+
+    /**
+     * Scales an image to the given size, scaling it only the first time.
+     * @param source the image to scale. It should be fully loaded, as images read by
+     * ImageIO and images from this cache are.
+     * @param width the scaled image's width.
+     * @param height the scaled image's height.
+     * @return the scaled image.
+     */
+    public static synchronized Image scaled(Image source, int width, int height) {
+        Key key = new Key(source, width, height);
+        Entry e = entries.get(key);
+        if (e != null) {
+            return e.image;
+        }
+        Image image = compatible(source, width, height);
+        put(key, image);
+        return image;
+    }
+
+    /**
+     * Loads an image from the resources and scales it to the given size.
+     * @param path the image's resource path.
+     * @param width the scaled image's width.
+     * @param height the scaled image's height.
+     * @return the scaled image, or null if it couldn't be loaded.
+     */
+    public static synchronized Image scaled(String path, int width, int height) {
+
+        // kept by its path, so it is still found after the unscaled image was dropped
+        Key key = new Key(path, width, height);
+        Entry e = entries.get(key);
+        if (e != null) {
+            return e.image;
+        }
+        Image source = load(path);
+        if (source == null) {
+            return null;
+        }
+        Image image = compatible(source, width, height);
+        put(key, image);
+        return image;
+    }
+
+    /**
+     * Sets the memory cap, dropping the least recently used images if needed.
+     * @param bytes the new cap, in bytes.
+     */
+    public static synchronized void setCapacity(long bytes) {
+        capacity = bytes;
+        evict();
+    }
+
+    /**
+     * @return the estimated memory taken by the cached images, in bytes.
+     */
+    public static synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Drops all of the cached images.
+     */
+    public static synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * Caches an image, and drops the least recently used images if the cap is passed.
+     * @param key the image's source and size.
+     * @param image the image.
+     */
+    private static void put(Key key, Image image) {
+        long bytes = bytes(image, key);
+        Entry old = entries.put(key, new Entry(image, bytes));
+        if (old != null) {
+            size -= old.bytes;
+        }
+        size += bytes;
+        evict();
+    }
+
+    /**
+     * Drops the least recently used images until the cached images fit in the cap.
+     * The most recently used image is always kept.
+     */
+    private static void evict() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (size > capacity && entries.size() > 1 && it.hasNext()) {
+            size -= it.next().bytes;
+            it.remove();
+        }
+    }
+
+    /**
+     * Creates an empty image in the display's format. This image is not cached.
+     * Without a display, a plain RGB or ARGB image is created.
+     * @param width the image's width.
+     * @param height the image's height.
+     * @param transparency one of the java.awt.Transparency constants.
+     * @return the new image.
+     */
+    public static BufferedImage createImage(int width, int height, int transparency) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, transparency == Transparency.OPAQUE
+                    ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        }
+        GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDefaultConfiguration();
+        return gc.createCompatibleImage(width, height, transparency);
+    }
+
+    /**
+     * Draws an image, at the given size, on a new image in the display's format.
+     * @param source the image to draw.
+     * @param width the new image's width.
+     * @param height the new image's height.
+     * @return the new image.
+     */
+    private static BufferedImage compatible(Image source, int width, int height) {
+        int w = Math.max(1, width);
+        int h = Math.max(1, height);
+        int transparency = source instanceof BufferedImage
+                ? ((BufferedImage) source).getTransparency() : Transparency.TRANSLUCENT;
+        BufferedImage image = createImage(w, h, transparency);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(source, 0, 0, w, h, null);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * @param image an image.
+     * @param key the image's source and size.
+     * @return the image's estimated size in memory, in bytes.
+     */
+    private static long bytes(Image image, Key key) {
+        long width = key.width >= 0 ? key.width : image.getWidth(null);
+        long height = key.height >= 0 ? key.height : image.getHeight(null);
+        return Math.max(0, width) * Math.max(0, height) * BYTES_PER_PIXEL;
+    }
+
+    /**
+     * An image's source and size. A size of -1 means the source's own size.
+     */
+    private static final class Key {
+        private Object source;
+        private int width;
+        private int height;
+
+        /**
+         * A constructor for Key.
+         * @param source a resource path, or the image that is scaled.
+         * @param width the image's width.
+         * @param height the image's height.
+         */
+        Key(Object source, int width, int height) {
+            this.source = source;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return this.source.equals(other.source) && this.width == other.width && this.height == other.height;
+        }
+
+        @Override
+        public int hashCode() {
+            return (this.source.hashCode() * 31 + this.width) * 31 + this.height;
+        }
+    }
+
+    /**
+     * A cached image and its estimated size.
+     */
+    private static final class Entry {
+        private Image image;
+        private long bytes;
+
+        /**
+         * A constructor for Entry.
+         * @param image the image.
+         * @param bytes the image's estimated size, in bytes.
+         */
+        Entry(Image image, long bytes) {
+            this.image = image;
+            this.bytes = bytes;
+        }
+    }
+}
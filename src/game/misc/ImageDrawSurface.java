@@ -0,0 +1,121 @@
+package game.misc;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Polygon;
+import java.awt.image.BufferedImage;
+
+import biuoop.DrawSurface;
+
+/**
+ * @author Yuval Ezra.
+ * A DrawSurface that draws on a BufferedImage, so Sprites can be drawn once offscreen
+ * and the image drawn instead of them.
+ */
+public class ImageDrawSurface implements DrawSurface {
+    private BufferedImage image;
+    private Graphics2D g;
+    private Font font;
+
+    /**
+     * A constructor for ImageDrawSurface.
+     * @param image the image to draw on.
+     */
+    public ImageDrawSurface(BufferedImage image) {
+        this.image = image;
+        this.g = image.createGraphics();
+        this.font = null;
+    }
+
+    /**
+     * Moves the origin of everything drawn from now on to (x, y).
+     * @param x the new origin's x.
+     * @param y the new origin's y.
+     */
+    public void translate(int x, int y) {
+        this.g.translate(x, y);
+    }
+
+    /**
+     * Releases the surface's resources. Nothing can be drawn on it afterwards.
+     */
+    public void dispose() {
+        this.g.dispose();
+    }
+
+    @Override
+    public void setColor(Color color) {
+        this.g.setColor(color);
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        this.g.drawLine(x1, y1, x2, y2);
+    }
+
+    @Override
+    public void drawOval(int x, int y, int width, int height) {
+        this.g.drawOval(x, y, width, height);
+    }
+
+    @Override
+    public void fillOval(int x, int y, int width, int height) {
+        this.g.fillOval(x, y, width, height);
+    }
+
+    @Override
+    public void drawRectangle(int x, int y, int width, int height) {
+        this.g.drawRect(x, y, width, height);
+    }
+
+    @Override
+    public void fillRectangle(int x, int y, int width, int height) {
+        this.g.fillRect(x, y, width, height);
+    }
+
+    @Override
+    public void drawCircle(int x, int y, int r) {
+        this.g.drawOval(x - r, y - r, 2 * r, 2 * r);
+    }
+
+    @Override
+    public void fillCircle(int x, int y, int r) {
+        this.g.fillOval(x - r, y - r, 2 * r, 2 * r);
+    }
+
+    @Override
+    public void drawPolygon(Polygon p) {
+        this.g.drawPolygon(p);
+    }
+
+    @Override
+    public void fillPolygon(Polygon p) {
+        this.g.fillPolygon(p);
+    }
+
+    @Override
+    public void drawText(int x, int y, String text, int fontSize) {
+        if (this.font == null || this.font.getSize() != fontSize) {
+            this.font = new Font(Font.SANS_SERIF, Font.PLAIN, fontSize);
+        }
+        this.g.setFont(this.font);
+        this.g.drawString(text, x, y);
+    }
+
+    @Override
+    public void drawImage(int x, int y, Image img) {
+        this.g.drawImage(img, x, y, null);
+    }
+
+    @Override
+    public int getWidth() {
+        return this.image.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return this.image.getHeight();
+    }
+}
@@ -0,0 +1,68 @@
+package game.misc;
+/**
+ * @author Yuval Ezra
+ * A simple counter, kept in a bare int for a single thread.
+ */
+public class IntCounter implements Counter {
+
+    private int count;
+    private long version;
+
+    // whether a batch is running, and the count when it began
+    private boolean batching;
+    private int batchStart;
+
+    /**
+     * A constructor for an IntCounter.
+     * @param count the current count.
+     */
+    public IntCounter(int count) {
+        this.count = count;
+        this.version = 0;
+        this.batching = false;
+    }
+
+    @Override
+    public void increase(int number) {
+        this.count += number;
+        if (number != 0 && !this.batching) {
+            this.version++;
+        }
+    }
+
+    @Override
+    public void decrease(int number) {
+        this.count -= number;
+        if (number != 0 && !this.batching) {
+            this.version++;
+        }
+    }
+
+    @Override
+    public void beginBatch() {
+        if (!this.batching) {
+            this.batching = true;
+            this.batchStart = this.getValue();
+        }
+    }
+
+    @Override
+    public void endBatch() {
+        if (this.batching) {
+            this.batching = false;
+            if (this.getValue() != this.batchStart) {
+                this.version++;
+            }
+        }
+    }
+
+    @Override
+    public int getValue() {
+        return this.count;
+    }
+
+    @Override
+    public long getVersion() {
+        return this.version;
+    }
+}
@@ -0,0 +1,13 @@
+package game.misc;
+
+/**
+ * @author Yuval Ezra.
+ * An object that can tell whether it has changed.
+ */
+public interface Versioned {
+
+    /**
+     * @return a number that grows every time this object changes, and only then.
+     */
+    long getVersion();
+}
@@ -1,29 +1,81 @@
 package game.objects;
 
 import java.awt.Color;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Random;
 
 import biuoop.DrawSurface;
+import game.collections.GameEnvironment;
+import game.geometry.Contact;
 import game.geometry.Point;
+import game.geometry.Rectangle;
+import game.hitListeners.HitListener;
 import game.levels.GameLevel;
 import game.objects.bullet.Bullet;
 import game.objects.bullet.Velocity;
+import game.objects.collidable.Collidable;
+import game.objects.collidable.CollisionLayer;
 import game.objects.sprite.Sprite;
 
 /**
  * @author Yuval Ezra.
  * A squad of Aliens.
+ * The squad listens to hits on its Aliens, and keeps count of the living Aliens in every
+ * row and column, so its bounds are found in O(1) instead of by going over the Aliens. The
+ * bounds are a single Rectangle that is moved in place every frame.
+ * The Aliens' Rectangles are relative to the squad's offset, so moving the squad only moves
+ * the offset. The squad is a single Collidable: it is indexed by its bounding box, and a
+ * trajectory is only tested against the Aliens in the grid cells it crosses.
  */
-public class AlienSquad implements Sprite {
+public class AlienSquad implements Sprite, Collidable, HitListener {
+
+    // the distance a point may be from an Alien and still count as on it
+    private static final double EPSILON = 0.01;
+
+    // the game time between two shots, in seconds
+    private static final double SHOT_COOLDOWN = 0.5;
 
     private Block[][] aliens;
     private int leftCol;
     private int rightCol;
     private int bottomRow;
+    private int topRow;
     private double speed;
 
+    // the squad's position; the Aliens are placed relative to it
+    private double offsetX;
+    private double offsetY;
+
+    // the distance between two neighbouring Aliens' corners in a row and in a column
+    private double cellWidth;
+    private double cellHeight;
+
+    // the bounding box of the living Aliens, and the GameEnvironment it is indexed in
+    private Rectangle bounds;
+    private GameEnvironment environment;
+
+    // each Alien's index in 'aliens', as row * columns + column
+    private Map<Block, Integer> indices;
+
+    // the living Aliens, per Alien, row and column
+    private boolean[][] alive;
+    private int[] rowAlive;
+    private int[] colAlive;
+    private int totalAlive;
+
+    // the lowest living row of every column
+    private int[] lowestRow;
+
+    // the columns that still have living Aliens, and each column's position among them
+    private int[] aliveCols;
+    private int[] colPosition;
+    private int aliveColCount;
+
+    // a column whose lowest living Alien is in 'bottomRow'
+    private int bottomCol;
+    private Random random;
+
     // initial values for a reset
     private double initialSpeed;
     private double initialX;
@@ -31,7 +83,7 @@ public class AlienSquad implements Sprite {
 
     private int screenWidth;
     private GameLevel g;
-    private long lastShot;
+    private double sinceLastShot;
 
     /**
      * An AlienSquad constructor.
@@ -42,37 +94,242 @@ public class AlienSquad implements Sprite {
      */
     public AlienSquad(Block[][] aliens, double speed, int screenWidth, GameLevel g) {
         this.aliens = aliens.clone();
-        this.leftCol = 0;
-        this.rightCol = aliens[0].length - 1;
-        this.bottomRow = aliens.length - 1;
         this.speed = speed;
+        this.random = new Random();
+        this.indices = new IdentityHashMap<>();
+        for (int i = 0; i < this.aliens.length; i++) {
+            for (int j = 0; j < this.aliens[0].length; j++) {
+                if (this.aliens[i][j] != null) {
+                    this.indices.put(this.aliens[i][j], i * this.aliens[0].length + j);
+                    this.aliens[i][j].addHitListener(this);
+                }
+            }
+        }
+        this.setLeftAndRight();
 
         this.initialSpeed = speed;
         this.initialX = aliens[0][0].getX();
         this.initialY = aliens[0][0].getY();
+        this.offsetX = this.initialX;
+        this.offsetY = this.initialY;
+
+        // the aliens are laid out in a regular grid, which every lookup relies on
+        Block first = this.aliens[0][0];
+        this.cellWidth = this.aliens[0].length > 1 ? this.aliens[0][1].getX() - first.getX() : first.getWidth();
+        this.cellHeight = this.aliens.length > 1 ? this.aliens[1][0].getY() - first.getY() : first.getHeight();
+        for (Block[] row : this.aliens) {
+            for (Block alien : row) {
+                if (alien != null) {
+                    Point local = new Point(alien.getX() - this.offsetX, alien.getY() - this.offsetY);
+                    alien.setCollisionRectangle(new Rectangle(local, alien.getWidth(), alien.getHeight()));
+                }
+            }
+        }
+        this.bounds = new Rectangle(new Point(this.offsetX, this.offsetY), 0, 0);
+        this.updateBounds();
 
         this.screenWidth = screenWidth;
         this.g = g;
-        this.lastShot = 0;
+        this.sinceLastShot = SHOT_COOLDOWN;
     }
 
     @Override
     public void drawOn(DrawSurface d) {
         for (int i = 0; i <= this.bottomRow; i++) {
             for (int j = this.leftCol; j <= this.rightCol; j++) {
-                if (this.aliens[i][j] != null && this.aliens[i][j].getHitPoints() != 0) {
-                    this.aliens[i][j].drawOn(d);
+                if (this.alive[i][j]) {
+                    this.aliens[i][j].drawOn(d, this.offsetX, this.offsetY);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void hitEvent(Block beingHit, Bullet hitter) {
+        if (beingHit.getHitPoints() != 0) {
+            return;
+        }
+        Integer index = this.indices.get(beingHit);
+        if (index == null) {
+            return;
+        }
+        int cols = this.aliens[0].length;
+        int row = index / cols;
+        int col = index % cols;
+        if (!this.alive[row][col]) {
+            return;
+        }
+        beingHit.removeHitListener(this);
+        this.kill(row, col);
+        this.updateBounds();
+    }
+
+    @Override
+    public Rectangle getCollisionRectangle() {
+        return this.bounds;
+    }
+
+    @Override
+    public CollisionLayer getLayer() {
+        return CollisionLayer.ALIENS;
+    }
+
+    @Override
+    public double timeOfImpact(double x1, double y1, double x2, double y2, double radius, Contact contact) {
+        if (this.totalAlive == 0) {
+            return -1;
+        }
+
+        // move the path into the Aliens' coordinates
+        double lx1 = x1 - this.offsetX;
+        double ly1 = y1 - this.offsetY;
+        double lx2 = x2 - this.offsetX;
+        double ly2 = y2 - this.offsetY;
+        int minCol = Math.max(this.leftCol, this.col(Math.min(lx1, lx2) - radius));
+        int maxCol = Math.min(this.rightCol, this.col(Math.max(lx1, lx2) + radius));
+        int minRow = Math.max(0, this.row(Math.min(ly1, ly2) - radius));
+        int maxRow = Math.min(this.bottomRow, this.row(Math.max(ly1, ly2) + radius));
+
+        // only the Aliens in the cells the path's bounding box covers can be hit. The contact is
+        // filled for the closest of them alone, so nothing is written but 'contact'
+        double closest = -1;
+        Block closestAlien = null;
+        for (int i = minRow; i <= maxRow; i++) {
+            for (int j = minCol; j <= maxCol; j++) {
+                if (this.alive[i][j]) {
+                    double t = this.aliens[i][j].timeOfImpact(lx1, ly1, lx2, ly2, radius, null);
+                    if (t >= 0 && (closest < 0 || t < closest)) {
+                        closest = t;
+                        closestAlien = this.aliens[i][j];
+                    }
+                }
+            }
+        }
+        if (closest >= 0 && contact != null) {
+            closestAlien.timeOfImpact(lx1, ly1, lx2, ly2, radius, contact);
+            contact.translate(this.offsetX, this.offsetY);
+        }
+        return closest;
+    }
+
+    @Override
+    public Velocity hit(Bullet hitter, Point collisionPoint, Velocity currentVelocity) {
+        double x = collisionPoint.getX() - this.offsetX;
+        double y = collisionPoint.getY() - this.offsetY;
+
+        // the collision point is on the border of the Alien that was hit
+        int minCol = Math.max(this.leftCol, this.col(x - EPSILON));
+        int maxCol = Math.min(this.rightCol, this.col(x + EPSILON));
+        int minRow = Math.max(0, this.row(y - EPSILON));
+        int maxRow = Math.min(this.bottomRow, this.row(y + EPSILON));
+        for (int i = minRow; i <= maxRow; i++) {
+            for (int j = minCol; j <= maxCol; j++) {
+                Block alien = this.aliens[i][j];
+                if (this.alive[i][j] && alien.getX() - EPSILON <= x && x <= alien.getX() + alien.getWidth() + EPSILON
+                        && alien.getY() - EPSILON <= y && y <= alien.getY() + alien.getHeight() + EPSILON) {
+                    return alien.hit(hitter, new Point(x, y), currentVelocity);
                 }
             }
         }
+        return new Velocity(currentVelocity.getDX(), currentVelocity.getDY());
+    }
+
+    /**
+     * @param x an X coordinate, relative to this squad.
+     * @return the column of the grid cell 'x' is in.
+     */
+    private int col(double x) {
+        return (int) Math.floor(x / this.cellWidth);
+    }
+
+    /**
+     * @param y a Y coordinate, relative to this squad.
+     * @return the row of the grid cell 'y' is in.
+     */
+    private int row(double y) {
+        return (int) Math.floor(y / this.cellHeight);
+    }
+
+    /**
+     * Recomputes the bounding box of the living Aliens, and re-indexes this squad.
+     */
+    private void updateBounds() {
+        if (this.totalAlive > 0) {
+            Block left = this.aliens[this.lowestRow[this.leftCol]][this.leftCol];
+            Block right = this.aliens[this.lowestRow[this.rightCol]][this.rightCol];
+            Block bottom = this.aliens[this.bottomRow][this.bottomCol];
+            double x = this.offsetX + left.getX();
+            double y = this.offsetY + this.topRow * this.cellHeight;
+            this.bounds.set(x, y, this.offsetX + right.getX() + right.getWidth() - x,
+                            this.offsetY + bottom.getY() + bottom.getHeight() - y);
+        }
+        if (this.environment != null) {
+            this.environment.updateCollidable(this);
+        }
+    }
+
+    /**
+     * Marks the Alien in (row, col) as dead, and updates the bounds of this AlienSquad.
+     * @param row the Alien's row.
+     * @param col the Alien's column.
+     */
+    private void kill(int row, int col) {
+        this.alive[row][col] = false;
+        this.rowAlive[row]--;
+        this.colAlive[col]--;
+        this.totalAlive--;
+        if (this.totalAlive == 0) {
+            this.leftCol = -1;
+            this.rightCol = -1;
+            this.bottomRow = -1;
+            this.topRow = -1;
+            this.bottomCol = -1;
+            this.aliveColCount = 0;
+            return;
+        }
+
+        if (this.colAlive[col] == 0) {
+
+            // swap the column out of the living columns
+            int last = this.aliveCols[this.aliveColCount - 1];
+            this.aliveCols[this.colPosition[col]] = last;
+            this.colPosition[last] = this.colPosition[col];
+            this.aliveColCount--;
+            this.lowestRow[col] = -1;
+            while (this.colAlive[this.leftCol] == 0) {
+                this.leftCol++;
+            }
+            while (this.colAlive[this.rightCol] == 0) {
+                this.rightCol--;
+            }
+        } else if (this.lowestRow[col] == row) {
+            int i = row - 1;
+            while (!this.alive[i][col]) {
+                i--;
+            }
+            this.lowestRow[col] = i;
+        }
+
+        while (this.rowAlive[this.bottomRow] == 0) {
+            this.bottomRow--;
+        }
+        while (this.rowAlive[this.topRow] == 0) {
+            this.topRow++;
+        }
+        if (this.lowestRow[this.bottomCol] != this.bottomRow) {
+            this.bottomCol = this.leftCol;
+            while (this.lowestRow[this.bottomCol] != this.bottomRow) {
+                this.bottomCol++;
+            }
+        }
     }
 
     @Override
     public void timePassed(double dt) {
         this.move(dt);
-        long time = System.currentTimeMillis();
-        if (time - this.lastShot >= 500) {
-            this.lastShot = time;
+        this.sinceLastShot += dt;
+        if (this.sinceLastShot >= SHOT_COOLDOWN) {
+            this.sinceLastShot = 0;
             this.shoot();
         }
     }
@@ -87,53 +344,22 @@ public class AlienSquad implements Sprite {
         if (col == -1) {
             return;
         }
-        int lowest = -1;
-        for (int i = 0; i <= this.bottomRow; i++) {
-            if (this.exists(this.aliens[i][col])) {
-                if (lowest == -1 || i > lowest) {
-                    lowest = i;
-                }
-            }
-        }
+        int lowest = this.lowestRow[col];
         double radius = 4;
-        double x = this.aliens[lowest][col].getX() + this.aliens[lowest][col].getWidth() / 2;
-        double y = this.aliens[lowest][col].getY() + this.aliens[lowest][col].getHeight() + (radius + 1);
-        Bullet b = new Bullet(new Point(x, y), 4, Color.RED);
-        b.setVelocity(new Velocity(0, 100));
-        // Ball b = this.aliens[lowest][col].createShot("enemy");
-        b.addToGame(this.g);
-        b.enemy(true);
+        Block shooter = this.aliens[lowest][col];
+        double x = this.offsetX + shooter.getX() + shooter.getWidth() / 2;
+        double y = this.offsetY + shooter.getY() + shooter.getHeight() + (radius + 1);
+        this.g.getBulletSystem().fire(x, y, (int) radius, 0, 100, true, Color.RED);
     }
 
     /**
-     * @return a random column in which there's an Alien.
+     * @return a random column in which there's an Alien, or -1 if there is none.
      */
     private int generateCol() {
-
-        List<Integer> toCheck = new ArrayList<>();
-        for (int i = this.leftCol; i <= this.rightCol; i++) {
-            toCheck.add(i);
+        if (this.aliveColCount == 0) {
+            return -1;
         }
-        while (toCheck.size() > 0) {
-
-            // randomize a column, and if it was already checked, continue
-            int num = new Random().nextInt(toCheck.size());
-            int col = toCheck.get(num);
-            if (!toCheck.contains(col)) {
-                continue;
-            }
-
-            // else, don't check it anymore
-            toCheck.remove(num);
-
-            // look for an alien in this column
-            for (int i = 0; i <= this.bottomRow; i++) {
-                if (this.exists(this.aliens[i][col])) {
-                    return col;
-                }
-            }
-        }
-        return -1;
+        return this.aliveCols[this.random.nextInt(this.aliveColCount)];
     }
 
     /**
@@ -141,10 +367,13 @@ public class AlienSquad implements Sprite {
      * @param dt the interval of time between draws.
      */
     public void move(double dt) {
-        this.setLeftAndRight();
+        if (this.totalAlive == 0) {
+            return;
+        }
         if (!this.handleDown(dt)) {
             this.moveNormal(dt);
         }
+        this.updateBounds();
     }
 
     /**
@@ -152,13 +381,7 @@ public class AlienSquad implements Sprite {
      * @param dt the interval of time between draws.
      */
     private void moveNormal(double dt) {
-        for (int i = 0; i <= this.bottomRow; i++) {
-            for (int j = this.leftCol; j <= this.rightCol; j++) {
-                if (this.exists(this.aliens[i][j])) {
-                    this.aliens[i][j].move(this.aliens[i][j].getX() + this.speed * dt, this.aliens[i][j].getY());
-                }
-            }
-        }
+        this.offsetX += this.speed * dt;
     }
 
     /**
@@ -167,16 +390,10 @@ public class AlienSquad implements Sprite {
      * @return true if the Aliens were moved down, false otherwise.
      */
     public boolean handleDown(double dt) {
-        double leftX = 0;
-        double rightX = 0;
-        for (int i = 0; i <= bottomRow; i++) {
-            if (this.exists(this.aliens[i][this.leftCol])) {
-                leftX = this.aliens[i][this.leftCol].getCollisionRectangle().getUpperLeft().getX();
-            }
-            if (this.exists(this.aliens[i][this.rightCol])) {
-                rightX = this.aliens[i][this.rightCol].getX() + this.aliens[i][this.rightCol].getWidth();
-            }
-        }
+        Block left = this.aliens[this.lowestRow[this.leftCol]][this.leftCol];
+        Block right = this.aliens[this.lowestRow[this.rightCol]][this.rightCol];
+        double leftX = this.offsetX + left.getX();
+        double rightX = this.offsetX + right.getX() + right.getWidth();
         double newX = leftX + this.speed * dt;
 
         // if we hit one of the edges, move the alien squad down and raise their speed
@@ -192,14 +409,7 @@ public class AlienSquad implements Sprite {
      * Moves the Aliens down.
      */
     public void moveDown() {
-        for (int i = 0; i <= this.bottomRow; i++) {
-            for (int j = this.leftCol; j <= this.rightCol; j++) {
-                if (this.exists(this.aliens[i][j])) {
-                    this.aliens[i][j].move(this.aliens[i][j].getX(),
-                            this.aliens[i][j].getY() + this.aliens[i][j].getHeight());
-                }
-            }
-        }
+        this.offsetY += this.aliens[this.bottomRow][this.bottomCol].getHeight();
     }
 
     /**
@@ -207,13 +417,8 @@ public class AlienSquad implements Sprite {
      * @param game the GameLevel to add this AlienSquad to.
      */
     public void addToGame(GameLevel game) {
-        for (int i = 0; i <= this.bottomRow; i++) {
-            for (int j = this.leftCol; j <= this.rightCol; j++) {
-                if (this.exists(this.aliens[i][j])) {
-                    game.addCollidable(this.aliens[i][j]);
-                }
-            }
-        }
+        game.addCollidable(this);
+        this.environment = game.getEnvironment();
     }
 
     /**
@@ -226,24 +431,54 @@ public class AlienSquad implements Sprite {
     }
 
     /**
-     * Updates this leftCol, rightCol and bottomRow.
+     * Recounts the living Aliens, and updates this leftCol, rightCol, topRow and bottomRow.
+     * This scans all of the Aliens, so it is only done when the squad is created;
+     * afterwards the counts are kept up to date by hitEvent().
      */
     public void setLeftAndRight() {
+        int rows = this.aliens.length;
+        int cols = this.aliens[0].length;
+        this.alive = new boolean[rows][cols];
+        this.rowAlive = new int[rows];
+        this.colAlive = new int[cols];
+        this.lowestRow = new int[cols];
+        this.aliveCols = new int[cols];
+        this.colPosition = new int[cols];
+        this.aliveColCount = 0;
+        this.totalAlive = 0;
         this.leftCol = -1;
         this.rightCol = -1;
         this.bottomRow = -1;
-        for (int i = 0; i < this.aliens.length; i++) {
-            for (int j = 0; j < this.aliens[0].length; j++) {
+        this.topRow = -1;
+        this.bottomCol = -1;
+        for (int j = 0; j < cols; j++) {
+            this.lowestRow[j] = -1;
+            for (int i = 0; i < rows; i++) {
                 if (this.exists(this.aliens[i][j])) {
-                    if (this.leftCol == -1 || j < this.leftCol) {
-                        this.leftCol = j;
-                    }
-                    if (this.rightCol == -1 || this.rightCol < j) {
-                        this.rightCol = j;
-                    }
-                    if (this.bottomRow == -1 || this.bottomRow < i) {
-                        this.bottomRow = i;
-                    }
+                    this.alive[i][j] = true;
+                    this.rowAlive[i]++;
+                    this.colAlive[j]++;
+                    this.totalAlive++;
+                    this.lowestRow[j] = i;
+                }
+            }
+            if (this.colAlive[j] > 0) {
+                int top = 0;
+                while (!this.alive[top][j]) {
+                    top++;
+                }
+                if (this.topRow == -1 || top < this.topRow) {
+                    this.topRow = top;
+                }
+                this.colPosition[j] = this.aliveColCount;
+                this.aliveCols[this.aliveColCount++] = j;
+                if (this.leftCol == -1) {
+                    this.leftCol = j;
+                }
+                this.rightCol = j;
+                if (this.lowestRow[j] > this.bottomRow) {
+                    this.bottomRow = this.lowestRow[j];
+                    this.bottomCol = j;
                 }
             }
         }
@@ -253,17 +488,15 @@ public class AlienSquad implements Sprite {
      * @return the lowest Y coordinate of this AlienSquad.
      */
     public double getHeight() {
-        for (int j = 0; j <= this.rightCol; j++) {
-            if (this.exists(this.aliens[this.bottomRow][j])) {
-                double y = this.aliens[this.bottomRow][j].getY();
-                return y + this.aliens[this.bottomRow][j].getHeight();
-            }
+        if (this.totalAlive == 0) {
+            return 0;
         }
-        return 0;
+        Block bottom = this.aliens[this.bottomRow][this.bottomCol];
+        return this.offsetY + bottom.getY() + bottom.getHeight();
     }
 
     /**
-     * @return this aliens.
+     * @return this aliens. Their Rectangles are relative to this squad's offset.
      */
     public Block[][] getAliens() {
         return this.aliens;
@@ -287,19 +520,10 @@ public class AlienSquad implements Sprite {
      * Restart this aliens to their initian positions.
      */
     public void restart() {
-        double startX = this.initialX, startY = this.initialY;
-        int lineSpace = 45, widSpace = 8;
-
-        for (int i = 0; i < aliens.length; i++) {
-            double x = startX;
-            for (int j = 0; j < aliens[0].length; j++) {
-                double width = aliens[i][j].getCollisionRectangle().getWidth();
-                aliens[i][j].move(x + j * width, startY);
-                x += widSpace;
-            }
-            startY += lineSpace;
-        }
+        this.offsetX = this.initialX;
+        this.offsetY = this.initialY;
         this.speed = this.initialSpeed;
+        this.updateBounds();
     }
 
     /**
@@ -308,27 +532,13 @@ public class AlienSquad implements Sprite {
      * @return true if b is in this AlienSquad, false otherwise.
      */
     public boolean contains(Block b) {
-        for (int i = 0; i < aliens.length; i++) {
-            for (int j = 0; j < aliens[0].length; j++) {
-                if (this.aliens[i][j].equals(b)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return this.indices.containsKey(b);
     }
 
     /**
      * @return true if all aliens are dead, false otherwise.
      */
     public boolean isEmpty() {
-        for (int i = 0; i <= this.bottomRow; i++) {
-            for (int j = this.leftCol; j <= this.rightCol; j++) {
-                if (this.exists(this.aliens[i][j])) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return this.totalAlive == 0;
     }
 }
@@ -6,15 +6,19 @@ import java.util.ArrayList;
 import java.util.List;
 
 import biuoop.DrawSurface;
+import game.collections.GameEnvironment;
+import game.geometry.Contact;
 import game.geometry.Point;
 import game.geometry.Rectangle;
 import game.hitListeners.HitListener;
 import game.hitListeners.HitNotifier;
 import game.levels.GameLevel;
 import game.misc.Fill;
+import game.misc.ImageCache;
 import game.objects.bullet.Bullet;
 import game.objects.bullet.Velocity;
 import game.objects.collidable.Collidable;
+import game.objects.collidable.CollisionLayer;
 import game.objects.sprite.Sprite;
 
 /**
@@ -28,10 +32,16 @@ public class Block implements Collidable, Sprite, HitNotifier {
     private int hitPoints;
     private List<HitListener> hitListeners;
 
+    // the GameEnvironment that indexes this Block, kept up to date when it moves
+    private GameEnvironment environment;
+
     // check if the Block is a friendly Block or an Alien.
     private boolean neutral;
     private boolean enemy;
 
+    // the layer this Block collides in
+    private CollisionLayer layer;
+
     /**
      * A constructor for a Block.
      * @param collisionRectangle the Block's shape (Rectangle)
@@ -44,8 +54,8 @@ public class Block implements Collidable, Sprite, HitNotifier {
         this.fills = new ArrayList<>();
         for (Fill f : fills) {
             if (f.getImage() != null) {
-                Image im = f.getImage().getScaledInstance((int) collisionRectangle.getWidth(),
-                        (int) collisionRectangle.getHeight(), Image.SCALE_DEFAULT);
+                Image im = ImageCache.scaled(f.getImage(), (int) collisionRectangle.getWidth(),
+                        (int) collisionRectangle.getHeight());
                 this.fills.add(new Fill(im));
             } else {
                 this.fills.add(f);
@@ -56,6 +66,7 @@ public class Block implements Collidable, Sprite, HitNotifier {
         this.hitListeners = new ArrayList<HitListener>();
         this.neutral = true;
         this.enemy = false;
+        this.layer = CollisionLayer.BORDERS;
     }
 
     /**
@@ -77,6 +88,7 @@ public class Block implements Collidable, Sprite, HitNotifier {
         this.hitListeners = new ArrayList<HitListener>();
         this.neutral = true;
         this.enemy = false;
+        this.layer = CollisionLayer.BORDERS;
     }
 
     /**
@@ -97,6 +109,7 @@ public class Block implements Collidable, Sprite, HitNotifier {
         this.hitListeners = new ArrayList<HitListener>();
         this.neutral = true;
         this.enemy = false;
+        this.layer = CollisionLayer.BORDERS;
     }
 
     /**
@@ -110,10 +123,10 @@ public class Block implements Collidable, Sprite, HitNotifier {
         this.collisionRectangle = collisionRectangle;
         this.fills = new ArrayList<>();
         if (f.getImage() != null) {
-            Image im = f.getImage().getScaledInstance((int) collisionRectangle.getWidth(),
-                    (int) collisionRectangle.getHeight(), Image.SCALE_DEFAULT);
+            Fill scaled = new Fill(ImageCache.scaled(f.getImage(), (int) collisionRectangle.getWidth(),
+                    (int) collisionRectangle.getHeight()));
             for (int i = 1; i <= Math.max(1, hitPoints); i++) {
-                fills.add(new Fill(im));
+                fills.add(scaled);
             }
         } else {
             for (int i = 1; i <= Math.max(1, hitPoints); i++) {
@@ -125,6 +138,7 @@ public class Block implements Collidable, Sprite, HitNotifier {
         this.hitListeners = new ArrayList<HitListener>();
         this.neutral = true;
         this.enemy = false;
+        this.layer = CollisionLayer.BORDERS;
     }
 
     /**
@@ -134,6 +148,33 @@ public class Block implements Collidable, Sprite, HitNotifier {
         return this.collisionRectangle;
     }
 
+    @Override
+    public CollisionLayer getLayer() {
+        return this.layer;
+    }
+
+    /**
+     * Sets the layer this Block collides in. Must be called before the Block is added to a game.
+     * @param l the Block's new layer.
+     */
+    public void setLayer(CollisionLayer l) {
+        this.layer = l;
+    }
+
+    /**
+     * Finds when a circle moving from (x1, y1) to (x2, y2) first touches this Block.
+     * @param x1 the circle's center's start x.
+     * @param y1 the circle's center's start y.
+     * @param x2 the circle's center's end x.
+     * @param y2 the circle's center's end y.
+     * @param radius the circle's radius.
+     * @param contact filled with the time, point and normal of the contact, if there is one.
+     * @return the time of impact in [0, 1], or -1 if the circle doesn't touch this Block.
+     */
+    public double timeOfImpact(double x1, double y1, double x2, double y2, double radius, Contact contact) {
+        return this.collisionRectangle.sweepCircle(x1, y1, x2, y2, radius, contact);
+    }
+
     /**
      * @return the Block's colour.
      */
@@ -164,6 +205,15 @@ public class Block implements Collidable, Sprite, HitNotifier {
      */
     public void setCollisionRectangle(Rectangle rect) {
         this.collisionRectangle = rect;
+        this.moved();
+    }
+
+    /**
+     * Sets the GameEnvironment this Block is in, so it could be updated when the Block moves.
+     * @param env the GameEnvironment this Block was added to.
+     */
+    public void setEnvironment(GameEnvironment env) {
+        this.environment = env;
     }
 
     /**
@@ -247,9 +297,19 @@ public class Block implements Collidable, Sprite, HitNotifier {
      * @param surface the DrawSurface to draw the Ball on.
      */
     public void drawOn(DrawSurface surface) {
+        this.drawOn(surface, 0, 0);
+    }
+
+    /**
+     * Draws the Block on the given DrawSurface, translated by (offsetX, offsetY).
+     * @param surface the DrawSurface to draw the Block on.
+     * @param offsetX the translation's x.
+     * @param offsetY the translation's y.
+     */
+    public void drawOn(DrawSurface surface, double offsetX, double offsetY) {
         Point upperLeft = this.collisionRectangle.getUpperLeft();
-        double x = upperLeft.getX();
-        double y = upperLeft.getY();
+        double x = upperLeft.getX() + offsetX;
+        double y = upperLeft.getY() + offsetY;
 
         // Draw the Block itself
         Fill f;
@@ -287,6 +347,7 @@ public class Block implements Collidable, Sprite, HitNotifier {
     public void addToGame(GameLevel g) {
         g.addSprite(this);
         g.addCollidable(this);
+        this.setEnvironment(g.getEnvironment());
     }
 
     /**
@@ -336,6 +397,16 @@ public class Block implements Collidable, Sprite, HitNotifier {
     public void move(double newX, double newY) {
         this.collisionRectangle.getUpperLeft().setX(newX);
         this.collisionRectangle.getUpperLeft().setY(newY);
+        this.moved();
+    }
+
+    /**
+     * Lets this Block's GameEnvironment know that its collision Rectangle has changed.
+     */
+    private void moved() {
+        if (this.environment != null) {
+            this.environment.updateCollidable(this);
+        }
     }
 
     /**
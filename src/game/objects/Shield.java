@@ -0,0 +1,198 @@
+package game.objects;
+
+import java.awt.Color;
+import java.util.BitSet;
+
+import biuoop.DrawSurface;
+import game.geometry.Contact;
+import game.geometry.Point;
+import game.geometry.Rectangle;
+import game.hitListeners.BallRemover;
+import game.levels.GameLevel;
+import game.misc.Versioned;
+import game.objects.bullet.Bullet;
+import game.objects.bullet.Velocity;
+import game.objects.collidable.Collidable;
+import game.objects.collidable.CollisionLayer;
+import game.objects.sprite.Sprite;
+
+/**
+ * @author Yuval Ezra
+ * A destructible shield.
+ * The shield is a grid of square cells, kept as a bit per cell. A Ball that hits the
+ * shield destroys the cell it hit and is removed from the game.
+ */
+public class Shield implements Sprite, Collidable, Versioned {
+
+    // the distance a point may be from a cell and still count as on it
+    private static final double EPSILON = 0.01;
+
+    private Rectangle bounds;
+    private double x;
+    private double y;
+    private double cellSize;
+    private int cols;
+    private int rows;
+
+    // the cells that weren't destroyed yet, as row * cols + col
+    private BitSet cells;
+
+    private Color color;
+    private BallRemover ballRemover;
+
+    // the number of cells destroyed so far
+    private long version;
+
+    /**
+     * A Shield constructor.
+     * @param upperLeft the Shield's upper left corner.
+     * @param cols the number of cells in a row.
+     * @param rows the number of cells in a column.
+     * @param cellSize the width and height of a single cell.
+     * @param color the Shield's colour.
+     * @param ballRemover removes the Balls that hit the Shield.
+     */
+    public Shield(Point upperLeft, int cols, int rows, double cellSize, Color color, BallRemover ballRemover) {
+        this.bounds = new Rectangle(upperLeft, cols * cellSize, rows * cellSize);
+        this.x = upperLeft.getX();
+        this.y = upperLeft.getY();
+        this.cellSize = cellSize;
+        this.cols = cols;
+        this.rows = rows;
+        this.cells = new BitSet(cols * rows);
+        this.cells.set(0, cols * rows);
+        this.color = color;
+        this.ballRemover = ballRemover;
+        this.version = 0;
+    }
+
+    @Override
+    public Rectangle getCollisionRectangle() {
+        return this.bounds;
+    }
+
+    @Override
+    public CollisionLayer getLayer() {
+        return CollisionLayer.SHIELDS;
+    }
+
+    @Override
+    public double timeOfImpact(double x1, double y1, double x2, double y2, double radius, Contact contact) {
+        if (this.cells.isEmpty()) {
+            return -1;
+        }
+        int minCol = Math.max(0, this.col(Math.min(x1, x2) - radius));
+        int maxCol = Math.min(this.cols - 1, this.col(Math.max(x1, x2) + radius));
+        int minRow = Math.max(0, this.row(Math.min(y1, y2) - radius));
+        int maxRow = Math.min(this.rows - 1, this.row(Math.max(y1, y2) + radius));
+
+        // only the cells the path's bounding box covers can be hit. The contact is filled for the
+        // closest of them alone, so nothing is written but 'contact'
+        double closest = -1;
+        int closestCell = -1;
+        for (int i = minRow; i <= maxRow; i++) {
+            for (int j = minCol; j <= maxCol; j++) {
+                if (this.cells.get(i * this.cols + j)) {
+                    double t = Rectangle.sweepCircle(x1, y1, x2, y2, radius, this.x + j * this.cellSize,
+                                                     this.y + i * this.cellSize, this.cellSize, this.cellSize,
+                                                     null);
+                    if (t >= 0 && (closest < 0 || t < closest)) {
+                        closest = t;
+                        closestCell = i * this.cols + j;
+                    }
+                }
+            }
+        }
+        if (closest >= 0 && contact != null) {
+            int i = closestCell / this.cols;
+            int j = closestCell % this.cols;
+            Rectangle.sweepCircle(x1, y1, x2, y2, radius, this.x + j * this.cellSize, this.y + i * this.cellSize,
+                                  this.cellSize, this.cellSize, contact);
+        }
+        return closest;
+    }
+
+    @Override
+    public Velocity hit(Bullet hitter, Point collisionPoint, Velocity currentVelocity) {
+        double px = collisionPoint.getX();
+        double py = collisionPoint.getY();
+
+        // destroy the cell the Ball hit. The collision point is on its border.
+        int minCol = Math.max(0, this.col(px - EPSILON));
+        int maxCol = Math.min(this.cols - 1, this.col(px + EPSILON));
+        int minRow = Math.max(0, this.row(py - EPSILON));
+        int maxRow = Math.min(this.rows - 1, this.row(py + EPSILON));
+        boolean destroyed = false;
+        for (int i = minRow; i <= maxRow && !destroyed; i++) {
+            for (int j = minCol; j <= maxCol && !destroyed; j++) {
+                if (this.cells.get(i * this.cols + j)) {
+                    this.cells.clear(i * this.cols + j);
+                    this.version++;
+                    destroyed = true;
+                }
+            }
+        }
+        this.ballRemover.remove(hitter);
+        return new Velocity(currentVelocity.getDX(), currentVelocity.getDY());
+    }
+
+    /**
+     * Draws the Shield on the given DrawSurface, filling every run of cells in a row at once.
+     * @param d the DrawSurface to draw the Shield on.
+     */
+    @Override
+    public void drawOn(DrawSurface d) {
+        d.setColor(this.color);
+        for (int i = 0; i < this.rows; i++) {
+            int rowStart = i * this.cols;
+            int start = this.cells.nextSetBit(rowStart);
+            while (start != -1 && start < rowStart + this.cols) {
+                int end = Math.min(this.cells.nextClearBit(start), rowStart + this.cols);
+                d.fillRectangle((int) (this.x + (start - rowStart) * this.cellSize), (int) (this.y + i * this.cellSize),
+                                (int) ((end - start) * this.cellSize), (int) this.cellSize);
+                start = this.cells.nextSetBit(end);
+            }
+        }
+    }
+
+    @Override
+    public void timePassed(double dt) {
+    }
+
+    @Override
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Add this Shield to the game. It is drawn as part of the game's static layer.
+     * @param g the game to add this Shield to.
+     */
+    public void addToGame(GameLevel g) {
+        g.addStaticSprite(this);
+        g.addCollidable(this);
+    }
+
+    /**
+     * @return the number of cells of this Shield that weren't destroyed.
+     */
+    public int remainingCells() {
+        return this.cells.cardinality();
+    }
+
+    /**
+     * @param px an X coordinate.
+     * @return the column of the cell 'px' is in.
+     */
+    private int col(double px) {
+        return (int) Math.floor((px - this.x) / this.cellSize);
+    }
+
+    /**
+     * @param py a Y coordinate.
+     * @return the row of the cell 'py' is in.
+     */
+    private int row(double py) {
+        return (int) Math.floor((py - this.y) / this.cellSize);
+    }
+}
@@ -3,6 +3,7 @@ import java.awt.Color;
 
 import biuoop.DrawSurface;
 import game.collections.GameEnvironment;
+import game.geometry.Contact;
 import game.geometry.Line;
 import game.geometry.Point;
 import game.geometry.Rectangle;
@@ -12,17 +13,21 @@ import game.objects.bullet.Bullet;
 import game.objects.bullet.Velocity;
 import game.objects.collidable.Collidable;
 import game.objects.collidable.CollisionInfo;
+import game.objects.collidable.CollisionLayer;
 import game.objects.sprite.Sprite;
 /**
  * @author Yuval Ezra
  * A paddle.
  */
 public class SpaceShip implements Sprite, Collidable {
+   // the minimal game time between two shots, in seconds
+   private static final double SHOT_COOLDOWN = 0.35;
+
    private biuoop.KeyboardSensor keyboard;
    private Block block;
    private double speed;
    private GameEnvironment env;
-   private long lastShot;
+   private double sinceLastShot;
    private GameLevel g;
    private boolean dead;
 
@@ -38,7 +43,7 @@ public class SpaceShip implements Sprite, Collidable {
        this.block = block;
        this.keyboard = keyboard;
        this.speed = speed;
-       this.lastShot = 0;
+       this.sinceLastShot = SHOT_COOLDOWN;
        this.g = g;
        this.dead = false;
    }
@@ -52,7 +57,7 @@ public class SpaceShip implements Sprite, Collidable {
        Point newCorner;
        Line trajectory = new Line(new Point(this.getX(), this.getY()),
                                   new Point(this.getX() - newSpeed, this.getY()));
-       CollisionInfo c = this.env.getClosestCollision(trajectory);
+       CollisionInfo c = this.env.getClosestCollision(trajectory, CollisionLayer.SHIP.mask());
 
        // If the Paddle hit something on the left, don't allow it to continue in that direction.
        if (c != null && this.getX() - newSpeed < c.collisionPoint().getX()) {
@@ -74,7 +79,7 @@ public class SpaceShip implements Sprite, Collidable {
        Point newCorner;
        Line trajectory = new Line(new Point(this.getX() + this.getWidth(), this.getY()),
                                   new Point(this.getX() + this.getWidth() + newSpeed, this.getY()));
-       CollisionInfo c = this.env.getClosestCollision(trajectory);
+       CollisionInfo c = this.env.getClosestCollision(trajectory, CollisionLayer.SHIP.mask());
 
        // If the Paddle hit something on its right, don't allow it to continue in that direction.
        // Also if the Paddle is going to cross it on the next move, and is on its left before moving.
@@ -103,10 +108,13 @@ public class SpaceShip implements Sprite, Collidable {
            this.moveRight(dt);
        }
 
+       // the Paddle's Block was replaced, so re-index it in the game's environment
+       this.g.getEnvironment().updateCollidable(this);
+
        // shooting
-       long time = System.currentTimeMillis();
-       if (this.keyboard.isPressed(biuoop.KeyboardSensor.SPACE_KEY) && (time - this.lastShot >= 350)) {
-           this.lastShot = time;
+       this.sinceLastShot += dt;
+       if (this.keyboard.isPressed(biuoop.KeyboardSensor.SPACE_KEY) && this.sinceLastShot >= SHOT_COOLDOWN) {
+           this.sinceLastShot = 0;
            this.shoot();
        }
    }
@@ -118,9 +126,7 @@ public class SpaceShip implements Sprite, Collidable {
        int radius = 3, ballSpeed = -600;
        double x = this.getX() + this.getWidth() / 2;
        double y = this.getY() - (radius + 3);
-       Bullet b = new Bullet(new Point(x, y), radius, Color.WHITE);
-       b.setVelocity(new Velocity(0, ballSpeed));
-       b.addToGame(this.g);
+       this.g.getBulletSystem().fire(x, y, radius, 0, ballSpeed, false, Color.WHITE);
    }
 
    /**
@@ -138,6 +144,25 @@ public class SpaceShip implements Sprite, Collidable {
        return this.block.getCollisionRectangle();
    }
 
+   @Override
+   public CollisionLayer getLayer() {
+      return CollisionLayer.SHIP;
+   }
+
+   /**
+    * Finds when a circle moving from (x1, y1) to (x2, y2) first touches the Paddle.
+    * @param x1 the circle's center's start x.
+    * @param y1 the circle's center's start y.
+    * @param x2 the circle's center's end x.
+    * @param y2 the circle's center's end y.
+    * @param radius the circle's radius.
+    * @param contact filled with the time, point and normal of the contact, if there is one.
+    * @return the time of impact in [0, 1], or -1 if the circle doesn't touch the Paddle.
+    */
+   public double timeOfImpact(double x1, double y1, double x2, double y2, double radius, Contact contact) {
+       return this.block.timeOfImpact(x1, y1, x2, y2, radius, contact);
+   }
+
    /**
    * Changes the Ball's speed after it hit the Paddle.
    * @param hitter the hitting Ball.
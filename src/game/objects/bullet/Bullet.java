@@ -1,72 +1,62 @@
 package game.objects.bullet;
 import java.awt.Color;
 
-import biuoop.DrawSurface;
-import game.collections.GameEnvironment;
-import game.geometry.Line;
 import game.geometry.Point;
 import game.levels.GameLevel;
-import game.objects.SpaceShip;
-import game.objects.collidable.Collidable;
-import game.objects.collidable.CollisionInfo;
-import game.objects.sprite.Sprite;
+import game.objects.collidable.CollisionLayer;
 /**
  * @author Yuval Ezra
- * A Ball.
+ * A Ball, as seen by the Collidables and HitListeners it hits.
+ * Every Ball in the game is a bullet of a BulletSystem, and a Bullet is a view of the bullet
+ * the BulletSystem is handling at the moment, so it is only valid during the hit it is handed to.
  */
-public class Bullet implements Sprite {
+public class Bullet {
 
     private Point center;
     private int size;
     private java.awt.Color color;
     private Velocity v;
-    private GameEnvironment environment;
 
     // check if the Ball is a friendly Bullet or an Alien one.
     private boolean enemy;
 
-    /**
-     * A constructor for a Ball.
-     * @param center the Ball's center
-     * @param radius the Ball's radius
-     * @param color the Ball's colour
-     */
-    public Bullet(Point center, int radius, java.awt.Color color) {
-        this.center = new Point(center.getX(), center.getY());
-        this.size = radius;
-        this.color = color;
-        this.v = new Velocity(0, 0);
-        this.environment = new GameEnvironment();
-        this.enemy = false;
-    }
+    // the BulletSystem this Ball is a view of, and the slot it shows
+    private BulletSystem system;
+    private int slot;
 
     /**
-     * Another constructor for a Ball.
-     * @param x the center's x
-     * @param y the center's y
-     * @param radius the Ball's radius
-     * @param color the Ball's colour
+     * A constructor for a Ball that is a view of a BulletSystem's bullets.
+     * @param system the BulletSystem this Ball is a view of.
      */
-    public Bullet(int x, int y, int radius, java.awt.Color color) {
-        this.center = new Point(x, y);
-        this.size = radius;
-        this.color = color;
+    Bullet(BulletSystem system) {
+        this.center = new Point(0, 0);
+        this.size = 0;
+        this.color = Color.WHITE;
         this.v = new Velocity(0, 0);
-        this.environment = new GameEnvironment();
         this.enemy = false;
+        this.system = system;
     }
 
     /**
-     * A constructor for a Ball - copying another Ball's properties.
-     * @param other the Ball to create a copy of.
+     * Shows the BulletSystem's bullet at 'index' through this view.
+     * @param index the bullet's slot.
+     * @param x the bullet's center's x.
+     * @param y the bullet's center's y.
+     * @param radius the bullet's radius.
+     * @param newColor the bullet's colour.
+     * @param dx the bullet's dx.
+     * @param dy the bullet's dy.
+     * @param isEnemy whether the bullet is an enemy bullet.
      */
-    public Bullet(Bullet other) {
-        this.center = new Point(other.getX(), other.getY());
-        this.size = other.getSize();
-        this.color = other.getColor();
-        this.v = other.getVelocity();
-        this.environment = other.getEnvironment();
-        this.enemy = false;
+    void show(int index, double x, double y, int radius, Color newColor, double dx, double dy, boolean isEnemy) {
+        this.slot = index;
+        this.center.setX(x);
+        this.center.setY(y);
+        this.size = radius;
+        this.color = newColor;
+        this.v.setDX(dx);
+        this.v.setDY(dy);
+        this.enemy = isEnemy;
     }
 
     /**
@@ -104,219 +94,25 @@ public class Bullet implements Sprite {
         return this.v;
     }
 
-    /**
-     * @return  the Ball's GameEnvironment.
-     */
-    public GameEnvironment getEnvironment() {
-        return this.environment;
-    }
-
-    /**
-     * Sets the Ball's colour to c.
-     * @param c the colour to have the ball set to.
-     */
-    public void setColor(java.awt.Color c) {
-        this.color = c;
-    }
-
-    /**
-     * Sets the Ball's Velocity to Velocity.
-     * @param velocity the Velocity to set to the Ball.
-     */
-    public void setVelocity(Velocity velocity) {
-        this.v = new Velocity(velocity.getDX(), velocity.getDY());
-    }
-
-    /**
-     * Sets the Ball's Velocity to v = (dx, dy).
-     * @param dx the dx of the new Velocity.
-     * @param dy the dy of the new Velocity.
-     */
-    public void setVelocity(double dx, double dy) {
-        this.v = new Velocity(dx, dy);
-    }
-
-    /**
-     * Sets the Ball's center to be 'newCenter'.
-     * @param newCenter the Ball's new center-point.
-     */
-    public void setCenter(Point newCenter) {
-        this.center = new Point(newCenter.getX(), newCenter.getY());
-    }
-
-    /**
-     * Sets the Ball's environment to 'env'.
-     * @param env the new GameEnvironment for the Ball.
-     */
-    public void setEnvironment(GameEnvironment env) {
-        this.environment = env;
-    }
-
-    /**
-     * Sets this Ball's status as an enemy.
-     * @param status the new status of this Ball.
-     */
-    public void enemy(boolean status) {
-        this.enemy = status;
-    }
-    /**
-     * Draws the Ball on the given DrawSurface.
-     * @param surface the DrawSurface to draw the Ball on.
-     */
-    public void drawOn(DrawSurface surface) {
-        int x = (int) this.center.getX();
-        int y = (int) this.center.getY();
-        surface.setColor(this.color);
-        surface.fillCircle(x, y, this.size);
-        surface.setColor(Color.BLACK);
-        surface.drawCircle(x, y, this.size);
-    }
-
-    /**
-     * Add this Ball to the game.
-     * @param g the game to add this Ball to
-     */
-    public void addToGame(GameLevel g) {
-        g.addSprite(this);
-        this.setEnvironment(g.getEnvironment());
-    }
-
     /**
      * Removes this Ball from the Game 'game'.
      * @param game the Game to remove this Ball from.
      */
     public void removeFromGame(GameLevel game) {
-        game.removeSprite(this);
-    }
-
-    /**
-     * Moves the Ball one step.
-     * @param dt the time interval between frames.
-     */
-    public void moveOneStep(double dt) {
-        // This Ball's trajectory
-        Velocity newV = new Velocity(this.v.getDX() * dt, this.v.getDY() * dt);
-        Line trajectory = new Line(this.center, newV.applyToPoint(this.center));
-
-        // The Collidables the Ball will hit
-        java.util.List<CollisionInfo> obstacles = this.environment.getClosestCollisions(trajectory);
-        if (obstacles == null) {
-            this.center = newV.applyToPoint(this.center);
-            return;
-        }
-        for (CollisionInfo c : obstacles) {
-            Point collision = c.collisionPoint();
-            if (collision != null) {
-                if (c.collisionObject() instanceof SpaceShip) {
-                    // Handle the case of a Ball inside the paddle
-                    this.handleInsidePaddle(c.collisionObject());
-                }
-
-                // Sets the Ball's new center and speed
-                this.moveToCollision(c.collisionObject());
-                this.setVelocity(c.collisionObject().hit(this, collision, this.v));
-            }
-        }
-    }
-
-    /**
-     * Moves the Ball to it's collision point with 'c'.
-     * @param c the Collidable that collides with this Ball.
-     */
-    public void moveToCollision(Collidable c) {
-        Line trajectory = new Line(this.center, this.v.applyToPoint(this.center));
-        Point corner = c.getCollisionRectangle().getUpperLeft();
-        Point collision = trajectory.closestIntersectionToStartOfLine(c.getCollisionRectangle());
-        if (collision == null) {
-            return;
-        }
-
-        // Variables regarding the points for comfort
-        double colX = collision.getX();
-        double colY = collision.getY();
-        double cornerX = corner.getX();
-        double cornerY = corner.getY();
-        double wid = c.getCollisionRectangle().getWidth();
-        double height = c.getCollisionRectangle().getHeight();
-
-        // An epsilon
-        double epsilon = 0.01;
-
-        double leftBorder = cornerX;
-        double rightBorder = (cornerX + wid);
-        double topBorder = cornerY;
-        double bottomBorder = (cornerY + height);
-
-        // Checking if the Ball is about to hit any border of the Collidable
-        if (leftBorder - epsilon < colX && colX < leftBorder && this.v.getDX() >= 0) {
-
-            // Moving the Ball's perimeter to the edge of the Collidable
-            this.center = new Point(leftBorder - this.size, this.getY());
-        }
-
-        if (rightBorder < colX && colX < rightBorder + epsilon && this.v.getDX() <= 0) {
-            this.center = new Point(rightBorder + this.size, this.getY());
-        }
-
-        if (topBorder - epsilon < colY && colY < topBorder && this.v.getDY() >= 0) {
-            this.center = new Point(this.getX(), topBorder - this.size);
-        }
-
-        if (bottomBorder < colY && colY < bottomBorder + epsilon && this.v.getDY() <= 0) {
-            this.center = new Point(this.getX(), bottomBorder + this.size);
-        }
-    }
-    /**
-     * Puts the Ball outside of the Paddle when it's in the Paddle.
-     * @param p the Paddle to move to Ball out of.
-     */
-    public void handleInsidePaddle(Collidable p) {
-        Point corner = p.getCollisionRectangle().getUpperLeft();
-        double cornerX = corner.getX();
-        double cornerY = corner.getY();
-        double wid = p.getCollisionRectangle().getWidth();
-        double height = p.getCollisionRectangle().getHeight();
-
-        Point newCenter = new Point(this.getX(), this.getY());
-        // If the Ball is in the Paddle Y axis wise
-        if (cornerY < this.getY() && this.getY() <= cornerY + height) {
-
-            // And x axis wise, and is on the first half of the Paddle
-            if (cornerX < this.getX() && this.getX() < (cornerX + wid / 2)) {
-                newCenter = new Point(cornerX - this.size, this.getY());
-            } else if (cornerX + wid / 2 <= this.getX() && this.getX() < cornerX + wid) {
-
-                // On the second half of the Paddle
-                newCenter = new Point(cornerX + wid + this.size, this.getY());
-            }
-        }
-
-        // Checks if the ball was moved into a Collidable
-        Line trajectory = new Line(newCenter, this.center);
-        CollisionInfo c = this.environment.getClosestCollision(trajectory);
-
-        // If it collided with anything, move it above the paddle to make it "pop"
-        if (c != null && c.collisionObject() != p) {
-            this.center = new Point(this.getX(), cornerY - this.size);
-        } else {
-
-            // Else, let it move as the Paddle wishes.
-            this.center = newCenter;
-        }
+        this.system.remove(this.slot);
     }
 
     /**
-     * Informs the Ball that time passed.
-     * @param dt the time interval between calls.
+     * @return true if this Ball is an enemy ball, and false otherwise.
      */
-    public void timePassed(double dt) {
-        this.moveOneStep(dt);
+    public boolean isEnemy() {
+        return this.enemy;
     }
 
     /**
-     * @return true if this Ball is an enemy ball, and false otherwise.
+     * @return the layer this Ball collides in: enemy shots, or the player's shots.
      */
-    public boolean isEnemy() {
-        return this.enemy;
+    public CollisionLayer getLayer() {
+        return this.enemy ? CollisionLayer.ENEMY_SHOTS : CollisionLayer.PLAYER_SHOTS;
     }
-}
\ No newline at end of file
+}
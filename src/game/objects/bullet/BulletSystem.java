@@ -0,0 +1,495 @@
+package game.objects.bullet;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+import biuoop.DrawSurface;
+import game.collections.GameEnvironment;
+import game.collections.SweepAndPrune;
+import game.geometry.Contact;
+import game.geometry.Point;
+import game.levels.GameLevel;
+import game.objects.collidable.Collidable;
+import game.objects.collidable.CollisionLayer;
+import game.objects.sprite.Sprite;
+
+/**
+ * @author Yuval Ezra
+ * All of the bullets in a game, the shots and the level's Balls, kept in parallel arrays instead
+ * of a Ball object each.
+ * Every tick, all of the bullets are moved in one loop, and then only the ones whose path
+ * crosses a Collidable are handed to it. Collidables and HitListeners get a single Ball that
+ * is a view of the bullet being handled, so firing, moving and removing bullets creates no
+ * objects. A player's shot that meets an Alien's shot cancels it, and both are removed. The
+ * pairs of shots that may meet are found by sorting each side's shots along the X axis,
+ * and sweeping the two sorted lists together.
+ * With many bullets, finding what each one touches is split into chunks that run on several
+ * cores, against the world as it is at the start of the tick. The hits are then applied on the
+ * calling thread in the order the bullets were fired, so a parallel tick has the same outcome as
+ * a serial one.
+ */
+public class BulletSystem implements Sprite {
+
+    // the number of bullets there's room for at first
+    private static final int INITIAL_CAPACITY = 64;
+
+    // the layers the player's and the Aliens' shots collide with
+    private static final int PLAYER_MASK = CollisionLayer.PLAYER_SHOTS.mask();
+    private static final int ENEMY_MASK = CollisionLayer.ENEMY_SHOTS.mask();
+
+    // the number of bullets from which a tick is split into chunks, and the chunks' size
+    private static final int PARALLEL_THRESHOLD = 1024;
+    private static final int CHUNK_SIZE = 256;
+
+    // the bullets, in slots 0 to count - 1. Every bullet has an id, in the order they were fired.
+    // Ids are kept under 2^31, so an id and a slot can be packed in a long
+    private long[] id;
+    private long nextId;
+    private double[] x;
+    private double[] y;
+    private double[] dx;
+    private double[] dy;
+    private int[] radius;
+    private boolean[] enemy;
+    private Color[] color;
+    private int count;
+
+    // where every bullet would be at the end of the tick
+    private double[] nextX;
+    private double[] nextY;
+
+    // the X extent every bullet sweeps during the tick, and when it first touches the world, or -1
+    private double[] lo;
+    private double[] hi;
+    private double[] toi;
+
+    // the bullets that touch the world during the tick, each as its id in the high 32 bits
+    // and its slot in the low 32 bits, so sorting them sorts them by id
+    private long[] pending;
+
+    // the chunks a tick is split into, and whether they may run on several cores
+    private Chunk[] chunks;
+    private boolean parallel;
+    private double tickLength;
+
+    // the bullets removed during the tick, dropped at its end
+    private boolean[] removed;
+    private int removedCount;
+
+    // the player's and the Aliens' shots sorted along the X axis, and every bullet's slot after
+    // the tick's removals
+    private SweepAndPrune playerShots;
+    private SweepAndPrune enemyShots;
+    private SweepAndPrune.PairHandler canceller;
+    private int[] newSlot;
+
+    private GameEnvironment environment;
+    private Bullet view;
+
+    // reused for the Collidables a bullet hits, and where it touches them
+    private java.util.List<Collidable> hits;
+    private Contact contact;
+
+    /**
+     * A constructor for BulletSystem.
+     * @param environment the GameEnvironment the bullets collide with.
+     */
+    public BulletSystem(GameEnvironment environment) {
+        this.id = new long[INITIAL_CAPACITY];
+        this.nextId = 0;
+        this.x = new double[INITIAL_CAPACITY];
+        this.y = new double[INITIAL_CAPACITY];
+        this.dx = new double[INITIAL_CAPACITY];
+        this.dy = new double[INITIAL_CAPACITY];
+        this.radius = new int[INITIAL_CAPACITY];
+        this.enemy = new boolean[INITIAL_CAPACITY];
+        this.color = new Color[INITIAL_CAPACITY];
+        this.nextX = new double[INITIAL_CAPACITY];
+        this.nextY = new double[INITIAL_CAPACITY];
+        this.lo = new double[INITIAL_CAPACITY];
+        this.hi = new double[INITIAL_CAPACITY];
+        this.toi = new double[INITIAL_CAPACITY];
+        this.pending = new long[INITIAL_CAPACITY];
+        this.chunks = new Chunk[0];
+        this.parallel = true;
+        this.removed = new boolean[INITIAL_CAPACITY];
+        this.newSlot = new int[INITIAL_CAPACITY];
+        this.playerShots = new SweepAndPrune();
+        this.enemyShots = new SweepAndPrune();
+        this.canceller = this::cancel;
+        this.count = 0;
+        this.removedCount = 0;
+        this.environment = environment;
+        this.view = new Bullet(this);
+        this.hits = new java.util.ArrayList<Collidable>();
+        this.contact = new Contact();
+    }
+
+    /**
+     * Fires a bullet.
+     * @param px the bullet's center's x.
+     * @param py the bullet's center's y.
+     * @param r the bullet's radius.
+     * @param vx the bullet's dx, in pixels per second.
+     * @param vy the bullet's dy, in pixels per second.
+     * @param isEnemy whether the bullet was fired by the Aliens.
+     * @param c the bullet's colour.
+     */
+    public void fire(double px, double py, int r, double vx, double vy, boolean isEnemy, Color c) {
+        if (this.count == this.x.length) {
+            this.grow();
+        }
+        if (this.nextId > Integer.MAX_VALUE) {
+            this.renumber();
+        }
+        int i = this.count++;
+        this.id[i] = this.nextId++;
+        this.x[i] = px;
+        this.y[i] = py;
+        this.dx[i] = vx;
+        this.dy[i] = vy;
+        this.radius[i] = r;
+        this.enemy[i] = isEnemy;
+        this.color[i] = c;
+        this.removed[i] = false;
+        (isEnemy ? this.enemyShots : this.playerShots).add(i);
+    }
+
+    /**
+     * Numbers the bullets again from 0, in the order they were fired, so the ids stay under 2^31.
+     */
+    private void renumber() {
+        for (int i = 0; i < this.count; i++) {
+            this.pending[i] = this.id[i] << 32 | i;
+        }
+        Arrays.sort(this.pending, 0, this.count);
+        for (int k = 0; k < this.count; k++) {
+            this.id[(int) this.pending[k]] = k;
+        }
+        this.nextId = this.count;
+    }
+
+    /**
+     * Removes the bullet at 'slot'. It is dropped at the end of the tick.
+     * @param slot the bullet's slot.
+     */
+    void remove(int slot) {
+        if (!this.removed[slot]) {
+            this.removed[slot] = true;
+            this.removedCount++;
+        }
+    }
+
+    /**
+     * Removes all of the bullets.
+     */
+    public void clear() {
+        Arrays.fill(this.color, 0, this.count, null);
+        Arrays.fill(this.removed, 0, this.count, false);
+        this.count = 0;
+        this.removedCount = 0;
+        this.playerShots.clear();
+        this.enemyShots.clear();
+    }
+
+    /**
+     * Sets whether ticks with many bullets are split across several cores. Either way, a tick
+     * has the same outcome.
+     * @param enabled true to split the ticks, false to run them on the calling thread alone.
+     */
+    public void setParallel(boolean enabled) {
+        this.parallel = enabled;
+    }
+
+    /**
+     * @return the number of bullets in the game.
+     */
+    public int size() {
+        return this.count - this.removedCount;
+    }
+
+    /**
+     * Moves all of the bullets, and has the ones that hit something hit it.
+     * @param dt the time interval between calls.
+     */
+    @Override
+    public void timePassed(double dt) {
+        int n = this.count;
+
+        // every bullet's path, and when it first touches the world as it is now. Nothing changes
+        // the world meanwhile, so the chunks of bullets can be handled on several cores.
+        this.step(n, dt);
+
+        // shots that meet during the tick cancel each other before they reach anything else
+        this.playerShots.update(this.lo);
+        this.enemyShots.update(this.lo);
+        this.playerShots.sweep(this.lo, this.hi, this.enemyShots, this.canceller);
+
+        // the bullets that touch nothing move on. A bullet is swept as a circle, so it can't pass
+        // through a thin Collidable however fast it is.
+        int touching = 0;
+        for (int i = 0; i < n; i++) {
+            if (this.removed[i]) {
+                continue;
+            }
+            if (this.toi[i] < 0) {
+                this.x[i] = this.nextX[i];
+                this.y[i] = this.nextY[i];
+            } else {
+                this.pending[touching++] = this.id[i] << 32 | i;
+            }
+        }
+
+        // the rest are handled one by one, in the order they were fired. An earlier hit may have
+        // removed what a bullet touches, so it's looked for again. Hits only remove Collidables,
+        // so a bullet that touched nothing at the start of the tick still touches nothing.
+        Arrays.sort(this.pending, 0, touching);
+        for (int k = 0; k < touching; k++) {
+            int i = (int) this.pending[k];
+
+            // a hit may have removed all of the bullets
+            if (i >= this.count || this.removed[i]) {
+                continue;
+            }
+            int mask = this.enemy[i] ? ENEMY_MASK : PLAYER_MASK;
+            double t = this.environment.getClosestCollidables(this.x[i], this.y[i], this.nextX[i], this.nextY[i],
+                                                              this.radius[i], mask, this.hits, this.contact);
+            if (t < 0) {
+                this.x[i] = this.nextX[i];
+                this.y[i] = this.nextY[i];
+            } else {
+                this.collide(i, t);
+            }
+        }
+        this.compact();
+    }
+
+    /**
+     * Finds every bullet's path for the tick, and when it first touches the world. With many
+     * bullets, the work is split into chunks that run on several cores.
+     * @param n the number of bullets.
+     * @param dt the time interval of the tick.
+     */
+    private void step(int n, double dt) {
+        this.tickLength = dt;
+        int parts = this.parallel && n >= PARALLEL_THRESHOLD ? (n + CHUNK_SIZE - 1) / CHUNK_SIZE : 1;
+        if (parts > this.chunks.length) {
+            int old = this.chunks.length;
+            this.chunks = Arrays.copyOf(this.chunks, parts);
+            for (int c = old; c < parts; c++) {
+                this.chunks[c] = new Chunk();
+            }
+        }
+        for (int c = 0; c < parts; c++) {
+            this.chunks[c].reinitialize();
+            this.chunks[c].from = parts == 1 ? 0 : c * CHUNK_SIZE;
+            this.chunks[c].to = parts == 1 ? n : Math.min(n, (c + 1) * CHUNK_SIZE);
+        }
+
+        // the first chunk is handled on this thread while the others are handled by the pool
+        for (int c = 1; c < parts; c++) {
+            this.chunks[c].fork();
+        }
+        this.chunks[0].step();
+        for (int c = 1; c < parts; c++) {
+            this.chunks[c].join();
+        }
+    }
+
+
+    /**
+     * Has the bullet at 'i' hit the Collidables in 'hits', the first things it touches on its path.
+     * @param i the bullet's slot.
+     * @param t the time of impact, as the parameter of the bullet's path.
+     */
+    private void collide(int i, double t) {
+        // the bullet is moved to where it touches them
+        this.x[i] += t * (this.nextX[i] - this.x[i]);
+        this.y[i] += t * (this.nextY[i] - this.y[i]);
+        Point collision = new Point(this.contact.getX(), this.contact.getY());
+        for (int k = 0; k < this.hits.size() && !this.removed[i]; k++) {
+            this.view.show(i, this.x[i], this.y[i], this.radius[i], this.color[i], this.dx[i], this.dy[i],
+                           this.enemy[i]);
+            Velocity v = this.hits.get(k).hit(this.view, collision, this.view.getVelocity());
+            this.dx[i] = v.getDX();
+            this.dy[i] = v.getDY();
+        }
+        if (this.removed[i]) {
+            return;
+        }
+
+        // the bullet survived, so it's kept from going on into the surface
+        double into = this.dx[i] * this.contact.getNormalX() + this.dy[i] * this.contact.getNormalY();
+        if (into < 0) {
+            this.dx[i] -= 2 * into * this.contact.getNormalX();
+            this.dy[i] -= 2 * into * this.contact.getNormalY();
+        }
+    }
+
+    /**
+     * Removes the player's shot at 'a' and the Alien's shot at 'b' if they meet during the tick.
+     * @param a the player's shot's slot.
+     * @param b the Alien's shot's slot.
+     */
+    private void cancel(int a, int b) {
+        if (this.removed[a] || this.removed[b]) {
+            return;
+        }
+
+        // b's position and path as seen from a
+        double px = this.x[b] - this.x[a];
+        double py = this.y[b] - this.y[a];
+        double vx = (this.nextX[b] - this.x[b]) - (this.nextX[a] - this.x[a]);
+        double vy = (this.nextY[b] - this.y[b]) - (this.nextY[a] - this.y[a]);
+        double reach = this.radius[a] + this.radius[b];
+
+        // the first time their distance is 'reach', from |p + t * v| = reach
+        double c = px * px + py * py - reach * reach;
+        if (c > 0) {
+            double vv = vx * vx + vy * vy;
+            double pv = px * vx + py * vy;
+            double disc = pv * pv - vv * c;
+            if (pv >= 0 || disc < 0 || -pv - Math.sqrt(disc) > vv) {
+                return;
+            }
+        }
+        this.remove(a);
+        this.remove(b);
+    }
+
+    /**
+     * Drops the removed bullets, moving the last bullets into their slots.
+     */
+    private void compact() {
+        if (this.removedCount == 0) {
+            return;
+        }
+        for (int i = 0; i < this.count; i++) {
+            this.newSlot[i] = i;
+        }
+        int i = 0;
+        while (i < this.count) {
+            if (!this.removed[i]) {
+                i++;
+                continue;
+            }
+            int last = --this.count;
+            this.newSlot[i] = -1;
+            this.newSlot[last] = this.removed[last] ? -1 : i;
+            this.id[i] = this.id[last];
+            this.x[i] = this.x[last];
+            this.y[i] = this.y[last];
+            this.dx[i] = this.dx[last];
+            this.dy[i] = this.dy[last];
+            this.radius[i] = this.radius[last];
+            this.enemy[i] = this.enemy[last];
+            this.color[i] = this.color[last];
+            this.removed[i] = this.removed[last];
+            this.color[last] = null;
+            this.removed[last] = false;
+        }
+        this.removedCount = 0;
+        this.playerShots.remap(this.newSlot);
+        this.enemyShots.remap(this.newSlot);
+    }
+
+    /**
+     * Doubles the room for bullets.
+     */
+    private void grow() {
+        int capacity = this.x.length * 2;
+        this.id = Arrays.copyOf(this.id, capacity);
+        this.x = Arrays.copyOf(this.x, capacity);
+        this.y = Arrays.copyOf(this.y, capacity);
+        this.dx = Arrays.copyOf(this.dx, capacity);
+        this.dy = Arrays.copyOf(this.dy, capacity);
+        this.radius = Arrays.copyOf(this.radius, capacity);
+        this.enemy = Arrays.copyOf(this.enemy, capacity);
+        this.color = Arrays.copyOf(this.color, capacity);
+        this.nextX = Arrays.copyOf(this.nextX, capacity);
+        this.nextY = Arrays.copyOf(this.nextY, capacity);
+        this.lo = Arrays.copyOf(this.lo, capacity);
+        this.hi = Arrays.copyOf(this.hi, capacity);
+        this.toi = Arrays.copyOf(this.toi, capacity);
+        this.pending = Arrays.copyOf(this.pending, capacity);
+        this.removed = Arrays.copyOf(this.removed, capacity);
+        this.newSlot = Arrays.copyOf(this.newSlot, capacity);
+    }
+
+    /**
+     * Draws the bullets on the given DrawSurface.
+     * @param d the DrawSurface to draw the bullets on.
+     */
+    @Override
+    public void drawOn(DrawSurface d) {
+        for (int i = 0; i < this.count; i++) {
+            if (this.removed[i]) {
+                continue;
+            }
+            int px = (int) this.x[i];
+            int py = (int) this.y[i];
+            d.setColor(this.color[i]);
+            d.fillCircle(px, py, this.radius[i]);
+            d.setColor(Color.BLACK);
+            d.drawCircle(px, py, this.radius[i]);
+        }
+    }
+
+    /**
+     * Add this BulletSystem to the game.
+     * @param g the game to add this BulletSystem to.
+     */
+    public void addToGame(GameLevel g) {
+        g.addSprite(this);
+    }
+
+    /**
+     * A range of bullets whose paths are found together. A Chunk only writes to its own slots
+     * and scratch space, so Chunks can run at once. It is reused from tick to tick.
+     */
+    private class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private int from;
+        private int to;
+        private GameEnvironment.Query query;
+        private java.util.List<Collidable> found;
+        private Contact first;
+
+        /**
+         * A constructor for Chunk.
+         */
+        Chunk() {
+            this.query = new GameEnvironment.Query();
+            this.found = new java.util.ArrayList<Collidable>();
+            this.first = new Contact();
+        }
+
+        @Override
+        protected void compute() {
+            this.step();
+        }
+
+        /**
+         * Finds the paths of the bullets in this Chunk, and when each first touches the world.
+         */
+        void step() {
+            BulletSystem s = BulletSystem.this;
+            double dt = s.tickLength;
+            for (int i = this.from; i < this.to; i++) {
+                s.nextX[i] = s.x[i] + s.dx[i] * dt;
+                s.nextY[i] = s.y[i] + s.dy[i] * dt;
+                s.lo[i] = Math.min(s.x[i], s.nextX[i]) - s.radius[i];
+                s.hi[i] = Math.max(s.x[i], s.nextX[i]) + s.radius[i];
+                s.toi[i] = -1;
+                if (s.environment != null) {
+                    int mask = s.enemy[i] ? ENEMY_MASK : PLAYER_MASK;
+                    s.toi[i] = s.environment.getClosestCollidables(s.x[i], s.y[i], s.nextX[i], s.nextY[i],
+                                                                   s.radius[i], mask, this.found, this.first,
+                                                                   this.query);
+                }
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package game.objects.collidable;
 
+import game.geometry.Contact;
 import game.geometry.Point;
 import game.geometry.Rectangle;
 import game.objects.bullet.Bullet;
@@ -16,6 +17,28 @@ public interface Collidable {
      */
     Rectangle getCollisionRectangle();
 
+    /**
+     * @return the layer this object collides in. It must not change while the object
+     * is in a GameEnvironment.
+     */
+    CollisionLayer getLayer();
+
+    /**
+     * Finds when a circle moving from (x1, y1) to (x2, y2) first touches this object.
+     * A radius of 0 finds where the segment (x1, y1) -> (x2, y2) first touches it.
+     * @param x1 the circle's center's start x.
+     * @param y1 the circle's center's start y.
+     * @param x2 the circle's center's end x.
+     * @param y2 the circle's center's end y.
+     * @param radius the circle's radius.
+     * @param contact filled with the time, point and normal of the contact, if there is one.
+     * May be null, to find only the time.
+     * @return the time of impact, as the path's parameter t in [0, 1], or -1 if the circle
+     * doesn't touch this object.
+     * Nothing but 'contact' may be written, so several threads can query an object at once.
+     */
+    double timeOfImpact(double x1, double y1, double x2, double y2, double radius, Contact contact);
+
     /**
      * Changes the objects's speed after it hit the Paddle.
      * @param hitter the hitting Ball.
@@ -0,0 +1,46 @@
+package game.objects.collidable;
+
+/**
+ * @author Yuval Ezra
+ * The layers things that collide are split into. Every layer has a mask of the layers its
+ * members can collide with, so a query only has to look at those layers.
+ */
+public enum CollisionLayer {
+
+    // the borders layer also holds any other plain Block
+    PLAYER_SHOTS, ENEMY_SHOTS, ALIENS, SHIELDS, BORDERS, SHIP;
+
+    // a mask of all of the layers
+    public static final int ALL = (1 << values().length) - 1;
+
+    /**
+     * @return this layer's bit in a mask.
+     */
+    public int bit() {
+        return 1 << this.ordinal();
+    }
+
+    /**
+     * @return the mask of the layers this layer's members can collide with.
+     */
+    public int mask() {
+        switch (this) {
+            case PLAYER_SHOTS:
+                return ALIENS.bit() | SHIELDS.bit() | BORDERS.bit();
+            case ENEMY_SHOTS:
+                return SHIP.bit() | SHIELDS.bit() | BORDERS.bit();
+            case SHIP:
+                return BORDERS.bit();
+            default:
+                return ALL;
+        }
+    }
+
+    /**
+     * @param mask a mask of layers.
+     * @return true if this layer is in 'mask', false otherwise.
+     */
+    public boolean in(int mask) {
+        return (mask & this.bit()) != 0;
+    }
+}
@@ -2,13 +2,14 @@ package game.objects.sprite;
 import biuoop.DrawSurface;
 import game.geometry.Point;
 import game.misc.Counter;
+import game.misc.Versioned;
 import game.objects.Block;
 
 /**
  * @author Yuval Ezra.
  * A lives indicator.
  */
-public class LivesIndicator implements Sprite {
+public class LivesIndicator implements Sprite, Versioned {
     private Counter lives;
     private Block board;
 
@@ -34,6 +35,11 @@ public class LivesIndicator implements Sprite {
         d.drawText(drawX, drawY, "Lives: " + Integer.toString(this.lives.getValue()), 15);
     }
 
+    @Override
+    public long getVersion() {
+        return this.lives.getVersion();
+    }
+
     @Override
     public void timePassed(double dt) {
         // TODO Auto-generated method stub
@@ -2,13 +2,14 @@ package game.objects.sprite;
 import biuoop.DrawSurface;
 import game.geometry.Point;
 import game.misc.Counter;
+import game.misc.Versioned;
 import game.objects.Block;
 
 /**
  * @author Yuval Ezra.
  * A lives indicator.
  */
-public class ScoreIndicator implements Sprite {
+public class ScoreIndicator implements Sprite, Versioned {
     private Counter score;
     private Block board;
 
@@ -35,6 +36,11 @@ public class ScoreIndicator implements Sprite {
         d.drawText(drawX, drawY, "Score: " + Integer.toString(this.score.getValue()), 15);
     }
 
+    @Override
+    public long getVersion() {
+        return this.score.getVersion();
+    }
+
     @Override
     public void timePassed(double dt) {
         // TODO Auto-generated method stub
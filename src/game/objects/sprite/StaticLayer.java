@@ -0,0 +1,130 @@
+package game.objects.sprite;
+
+import java.awt.Color;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import biuoop.DrawSurface;
+import game.misc.ImageCache;
+import game.misc.ImageDrawSurface;
+import game.misc.Versioned;
+
+/**
+ * @author Yuval Ezra.
+ * A layer of Sprites that rarely change, such as the background and the borders.
+ * The Sprites are drawn once on an offscreen image, and every frame only the image is drawn.
+ * Sprites that may change implement Versioned, and the image is drawn again once one of
+ * them has a new version. A layer covers either the whole screen or a part of it.
+ */
+public class StaticLayer implements Sprite {
+    private List<Sprite> sprites;
+    private BufferedImage buffer;
+
+    // the part of the screen the layer covers. A width of 0 means the whole screen.
+    private int x;
+    private int y;
+    private int width;
+    private int height;
+
+    // the sum of the Sprites' versions when the buffer was drawn
+    private long renderedVersion;
+    private boolean dirty;
+
+    /**
+     * A constructor for a StaticLayer that covers the whole screen.
+     */
+    public StaticLayer() {
+        this(0, 0, 0, 0);
+    }
+
+    /**
+     * A constructor for a StaticLayer that covers a part of the screen.
+     * Anything its Sprites draw outside of that part is not shown.
+     * @param x the part's upper left x.
+     * @param y the part's upper left y.
+     * @param width the part's width.
+     * @param height the part's height.
+     */
+    public StaticLayer(int x, int y, int width, int height) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.sprites = new ArrayList<>();
+        this.buffer = null;
+        this.renderedVersion = 0;
+        this.dirty = true;
+    }
+
+    /**
+     * Adds Sprite s on top of this layer's Sprites.
+     * @param s the Sprite to add.
+     */
+    public void addSprite(Sprite s) {
+        this.sprites.add(s);
+        this.dirty = true;
+    }
+
+    /**
+     * Removes Sprite s from this layer.
+     * @param s the Sprite to remove.
+     */
+    public void removeSprite(Sprite s) {
+        if (this.sprites.remove(s)) {
+            this.dirty = true;
+        }
+    }
+
+    @Override
+    public void drawOn(DrawSurface d) {
+        long version = this.version();
+        int w = this.width > 0 ? this.width : d.getWidth();
+        int h = this.width > 0 ? this.height : d.getHeight();
+        if (this.buffer == null || this.buffer.getWidth() != w || this.buffer.getHeight() != h) {
+            this.buffer = ImageCache.createImage(w, h, Transparency.OPAQUE);
+            this.dirty = true;
+        }
+        if (this.dirty || version != this.renderedVersion) {
+            this.render();
+            this.renderedVersion = version;
+            this.dirty = false;
+        }
+        d.drawImage(this.x, this.y, this.buffer);
+    }
+
+    @Override
+    public void timePassed(double dt) {
+        for (Sprite s : this.sprites) {
+            s.timePassed(dt);
+        }
+    }
+
+    /**
+     * Draws the Sprites on the buffer, over a white screen.
+     */
+    private void render() {
+        ImageDrawSurface surface = new ImageDrawSurface(this.buffer);
+        surface.setColor(Color.WHITE);
+        surface.fillRectangle(0, 0, this.buffer.getWidth(), this.buffer.getHeight());
+        surface.translate(-this.x, -this.y);
+        for (Sprite s : this.sprites) {
+            s.drawOn(surface);
+        }
+        surface.dispose();
+    }
+
+    /**
+     * @return the sum of the versions of the Sprites that may change.
+     */
+    private long version() {
+        long version = 0;
+        for (Sprite s : this.sprites) {
+            if (s instanceof Versioned) {
+                version += ((Versioned) s).getVersion();
+            }
+        }
+        return version;
+    }
+}